@@ -0,0 +1,137 @@
+/**
+ * BasinMap.java
+ * @version Parallel solution
+ *
+ * Where the climbs lead (--basins). Every cell a hunter claims points to the cell it climbed
+ * to next, and a local maximum points to itself, so following the pointers from any claimed
+ * cell ends on the peak of its basin. The pointers live in an IntGrid of cell numbers
+ * (x * columns + y), written once by the claiming hunter and shortened by every walk over
+ * them (path halving): a pointer is only ever replaced by one further along the same path,
+ * so racing walks need no locks.
+ *
+ * A hunter that stops on another hunter's path hands the cells it claimed to the peak that
+ * path leads to; if the path is still being climbed (a pointer not written yet) the cells
+ * wait in a queue until finish(), after the hunt. Each local maximum is recorded once, by
+ * the hunter that claimed it, and the basin sizes add up to the cells the hunters claimed.
+ * The mana of a peak is the one its claimer computed, so no cell is evaluated twice.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BasinMap {
+
+	static final int UNSET = -1;
+
+	/** A local maximum and the number of claimed cells whose climbs lead to it. */
+	static final class Peak {
+		final int x, y;
+		int mana;                              // set by the claimer, read after the hunt
+		final LongAdder cells = new LongAdder();
+
+		Peak(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	private final int columns;
+	private final IntGrid leadsTo;
+	private final ConcurrentHashMap<Integer, Peak> peaks = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<long[]> pending = new ConcurrentLinkedQueue<>();  // {cell, cells} of paths not finished yet
+
+	BasinMap(int rows, int columns) {
+		if ((long) rows * columns > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("--basins needs fewer than 2^31 cells.");
+		}
+		this.columns = columns;
+		this.leadsTo = IntGrid.create(rows, columns, UNSET);
+	}
+
+	/** The claimed cell (x, y) climbs on to (toX, toY). */
+	void leads(int x, int y, int toX, int toY) {
+		leadsTo.set(x, y, toX * columns + toY);
+	}
+
+	/** The claimed cell (x, y) is a local maximum of mana, reached by a climb that claimed cells cells. */
+	void peak(int x, int y, int mana, int cells) {
+		int cell = x * columns + y;
+		peaks.computeIfAbsent(cell, c -> new Peak(x, y)).mana = mana;
+		leadsTo.set(x, y, cell);
+		drain(x, y, cells);
+	}
+
+	/** A climb that claimed cells cells joined the path through (x, y): they go to the peak it leads to. */
+	void drain(int x, int y, int cells) {
+		if (cells == 0) return;
+		if (!add(x * columns + y, cells)) pending.add(new long[] {x * columns + y, cells});
+	}
+
+	/** Hands the cells of the paths that were still being climbed to their peaks. Call it after the hunt. */
+	void finish() {
+		for (long[] path; (path = pending.poll()) != null; ) {
+			if (!add((int) path[0], path[1])) throw new IllegalStateException("A path of the hunt leads nowhere.");
+		}
+	}
+
+	// false if the path from cell is not finished yet
+	private boolean add(int cell, long cells) {
+		int root = find(cell);
+		if (root == UNSET) return false;
+		int x = root / columns, y = root % columns;
+		peaks.computeIfAbsent(root, c -> new Peak(x, y)).cells.add(cells);
+		return true;
+	}
+
+	/** The peak the path through cell leads to, halving the path on the way; UNSET if it is still being climbed. */
+	int find(int cell) {
+		int current = cell;
+		while (true) {
+			int next = pointer(current);
+			if (next == UNSET || next == current) return next;
+			int after = pointer(next);
+			if (after == UNSET || after == next) return after;
+			leadsTo.set(current / columns, current % columns, after);   // skip next from now on
+			current = after;
+		}
+	}
+
+	private int pointer(int cell) {
+		return leadsTo.get(cell / columns, cell % columns);
+	}
+
+	/** The basin size of the peak at (x, y), -1 if no climb reached it. Call it after finish(). */
+	long basin(int x, int y) {
+		Peak peak = peaks.get(x * columns + y);
+		return peak == null ? -1 : peak.cells.sum();
+	}
+
+	/** The peaks found, highest first (ties in cell order). */
+	List<Peak> peaks() {
+		List<Peak> list = new ArrayList<>(peaks.values());
+		list.sort((a, b) -> a.mana != b.mana ? Integer.compare(b.mana, a.mana)
+				: Integer.compare(a.x * columns + a.y, b.x * columns + b.y));
+		return list;
+	}
+
+	/** Writes the peaks, highest first, as CSV: grid cell, dungeon coordinates, mana and basin size. */
+	void write(String file, DungeonMapParallel dungeon) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("row,column,x,y,mana,basinCells");
+			for (Peak peak : peaks()) {
+				out.printf(Locale.ROOT, "%d,%d,%.1f,%.1f,%d,%d\n", peak.x, peak.y, dungeon.getXcoord(peak.x),
+						dungeon.getYcoord(peak.y), peak.mana, peak.cells.sum());
+			}
+		}
+	}
+}
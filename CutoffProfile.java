@@ -0,0 +1,279 @@
+/**
+ * CutoffProfile.java
+ * @version Parallel solution
+ *
+ * The sequential cutoffs of the parallel stages, tuned for this machine (--tune) and kept
+ * in a small properties file (--cutoffs, default cutoffs.properties) that later runs read:
+ *   huntBlocks   blocks per worker of the recursive HuntTask split
+ *   chunkSteps   steps of work per chunk of the adaptive HuntScheduler
+ *   bandRows     scanlines per band the image encoder compresses as one task
+ * Entries are keyed by the backend (kind and parallelism) and a size class, the number of
+ * rows rounded up to a power of two, e.g. forkjoin8.rows4096.huntBlocks=6. A run uses the
+ * entry of its size class, else the nearest one tuned for the same backend, else the
+ * defaults below (the figures of the SequentialCutoff study and of the schedulers).
+ *
+ * Tuning runs short probes on a dungeon like the one of the job: probeGate starts from
+ * PROBE_GATE and doubles the gate up to the job's while one probe hunt stays within
+ * PROBE_BUDGET, so small jobs are probed at their own size and large ones at the largest
+ * size the budget allows. The probe dungeon is hunted with every candidate of a stage, best
+ * of PROBE_RUNS after one warm-up run, and the images of one probe hunt are encoded with
+ * every band size. The result is kept under the size class of the probe, the size that was
+ * measured; a larger job uses it as the nearest class until a probe of its own size fits.
+ * A candidate replaces the default only if it is clearly faster (by MIN_GAIN), so timing
+ * noise does not move the cutoffs around.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+public class CutoffProfile {
+
+	static final int PROBE_GATE = 40;         // the smallest probe, if the job is not smaller
+	static final long PROBE_BUDGET = 50_000_000L;   // nanoseconds one probe hunt may take, so tuning takes seconds
+	static final int PROBE_RUNS = 5;
+	static final int PROBE_SEARCHES = 4096;   // at least, so a probe hunt takes milliseconds, not microseconds
+	static final double MIN_GAIN = 0.10;
+	private static final int PROBE_SEED = 1;
+
+	static final int[] HUNT_BLOCKS = {1, 2, 4, 6, 8, 16, 32};
+	static final int[] CHUNK_STEPS = {256, 512, 1024, 2048, 4096, 8192};
+	static final int[] BAND_ROWS = {16, 32, 64, 128, 256};
+
+	/** The cutoffs of one backend and size class. */
+	static final class Cutoffs {
+		static final int DEFAULT_HUNT_BLOCKS = 6;    // from the SequentialCutoff study: about 6 blocks per core
+		static final Cutoffs DEFAULT = new Cutoffs(DEFAULT_HUNT_BLOCKS, (int) HuntScheduler.TARGET_STEPS,
+				DungeonMapParallel.IMAGE_BAND_ROWS);
+
+		final int huntBlocks, chunkSteps, bandRows;
+
+		Cutoffs(int huntBlocks, int chunkSteps, int bandRows) {
+			this.huntBlocks = huntBlocks;
+			this.chunkSteps = chunkSteps;
+			this.bandRows = bandRows;
+		}
+
+		/** Largest block of searches the recursive HuntTask runs without splitting, at least one. */
+		int huntThreshold(int searches, int parallelism) {
+			return Math.max(1, searches / (parallelism * huntBlocks));
+		}
+
+		@Override
+		public String toString() {
+			return "huntBlocks=" + huntBlocks + " chunkSteps=" + chunkSteps + " bandRows=" + bandRows;
+		}
+	}
+
+	private final File file;
+	private final Properties entries = new Properties();
+
+	private CutoffProfile(File file) {
+		this.file = file;
+	}
+
+	/** The profile in file, empty if there is no such file yet. */
+	static CutoffProfile load(File file) throws IOException {
+		CutoffProfile profile = new CutoffProfile(file);
+		if (file.exists()) {
+			try (Reader in = new FileReader(file)) {
+				profile.entries.load(in);
+			}
+		}
+		return profile;
+	}
+
+	File file() {
+		return file;
+	}
+
+	/** The cutoffs for a dungeon of rows on backend: its own size class, the nearest tuned one, or the defaults. */
+	Cutoffs get(ExecutionBackend backend, int rows) {
+		String machine = machine(backend);
+		int size = sizeClass(rows), nearest = 0;
+		for (String key : entries.stringPropertyNames()) {
+			if (!key.startsWith(machine + ".rows") || !key.endsWith(".huntBlocks")) continue;
+			int tuned;
+			try {
+				tuned = Integer.parseInt(key.substring(machine.length() + 5, key.length() - 11));
+			} catch (NumberFormatException e) {
+				continue;   // not an entry of ours
+			}
+			if (tuned <= 0 || Integer.bitCount(tuned) != 1) continue;
+			if (nearest == 0 || distance(tuned, size) < distance(nearest, size)) nearest = tuned;
+		}
+		if (nearest == 0) return Cutoffs.DEFAULT;
+		String prefix = machine + ".rows" + nearest + ".";
+		return new Cutoffs(value(prefix + "huntBlocks", Cutoffs.DEFAULT.huntBlocks),
+				value(prefix + "chunkSteps", Cutoffs.DEFAULT.chunkSteps), value(prefix + "bandRows", Cutoffs.DEFAULT.bandRows));
+	}
+
+	/** Records cutoffs for dungeons of rows on backend; save() writes them out. */
+	void put(ExecutionBackend backend, int rows, Cutoffs cutoffs) {
+		String prefix = machine(backend) + ".rows" + sizeClass(rows) + ".";
+		entries.setProperty(prefix + "huntBlocks", Integer.toString(cutoffs.huntBlocks));
+		entries.setProperty(prefix + "chunkSteps", Integer.toString(cutoffs.chunkSteps));
+		entries.setProperty(prefix + "bandRows", Integer.toString(cutoffs.bandRows));
+	}
+
+	void save() throws IOException {
+		try (Writer out = new FileWriter(file)) {
+			entries.store(out, "Sequential cutoffs per backend and size class, written by DungeonHunterParallel --tune");
+		}
+	}
+
+	private int value(String key, int defaultValue) {
+		try {
+			int value = Integer.parseInt(entries.getProperty(key, Integer.toString(defaultValue)));
+			return value > 0 ? value : defaultValue;
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	static String machine(ExecutionBackend backend) {
+		return backend.kind().name().toLowerCase(Locale.ROOT) + backend.parallelism();
+	}
+
+	/** rows rounded up to a power of two. */
+	static int sizeClass(int rows) {
+		return rows <= 1 ? 1 : Integer.highestOneBit(rows - 1) << 1;
+	}
+
+	private static int distance(int sizeClass, int other) {
+		return Math.abs(Integer.numberOfTrailingZeros(sizeClass) - Integer.numberOfTrailingZeros(other));
+	}
+
+	/**
+	 * The gate of the probe dungeon for a job of gateSize and multiplier on backend: the job's
+	 * own, or the largest gate on the way there, doubling from PROBE_GATE, whose hunt takes
+	 * no longer than PROBE_BUDGET with the default cutoffs.
+	 */
+	static int probeGate(ExecutionBackend backend, int gateSize, double multiplier) {
+		int gate = Math.min(gateSize, PROBE_GATE);
+		if (gate == gateSize) return gate;
+		DungeonMapParallel.Grids grids = new DungeonMapParallel.Grids();
+		backend.useCutoffs(Cutoffs.DEFAULT);
+		timeHunt(backend, grids, gate, probeSearches(backend, gate, multiplier), "adaptive");   // warms up the JIT
+		while (gate < gateSize) {
+			int next = (int) Math.min(gateSize, 2L * gate);
+			long nanos = timeHunt(backend, grids, gate, probeSearches(backend, gate, multiplier), "adaptive");
+			double growth = (double) next / gate;
+			if (nanos * growth * growth > PROBE_BUDGET) break;   // the hunt grows with the area of the dungeon
+			gate = next;
+		}
+		return gate;
+	}
+
+	/**
+	 * Probes every stage on backend with the dungeon of gate and multiplier and returns the
+	 * fastest cutoffs, printing the timings to out. Leaves the cutoffs of backend at the result.
+	 */
+	static Cutoffs tune(ExecutionBackend backend, int gate, double multiplier, PrintStream out) throws IOException {
+		int searches = probeSearches(backend, gate, multiplier);
+		DungeonMapParallel.Grids grids = new DungeonMapParallel.Grids();
+		Cutoffs best = Cutoffs.DEFAULT;
+		out.printf("\t probe: gate %d, %d searches, best of %d runs (ms)\n", gate, searches, PROBE_RUNS);
+		backend.useCutoffs(best);
+		probeHunt(backend, grids, gate, searches, "adaptive");   // so the JIT has compiled the hunt before the first candidate
+
+		// the recursive split only runs on a ForkJoinPool
+		if (backend.forkJoinPool() != null) {
+			long[] nanos = new long[HUNT_BLOCKS.length];
+			for (int c = 0; c < HUNT_BLOCKS.length; c++) {
+				backend.useCutoffs(new Cutoffs(HUNT_BLOCKS[c], best.chunkSteps, best.bandRows));
+				nanos[c] = probeHunt(backend, grids, gate, searches, "recursive");
+			}
+			best = new Cutoffs(pick("huntBlocks", HUNT_BLOCKS, nanos, best.huntBlocks, out), best.chunkSteps, best.bandRows);
+		}
+		long[] nanos = new long[CHUNK_STEPS.length];
+		for (int c = 0; c < CHUNK_STEPS.length; c++) {
+			backend.useCutoffs(new Cutoffs(best.huntBlocks, CHUNK_STEPS[c], best.bandRows));
+			nanos[c] = probeHunt(backend, grids, gate, searches, "adaptive");
+		}
+		best = new Cutoffs(best.huntBlocks, pick("chunkSteps", CHUNK_STEPS, nanos, best.chunkSteps, out), best.bandRows);
+
+		// the images of one hunted probe dungeon, encoded to scratch files
+		backend.useCutoffs(best);
+		DungeonMapParallel dungeon = probeDungeon(backend, grids, gate);
+		DungeonHunterParallel.runHunt(HuntLaunch.spatial(new Random(PROBE_SEED), searches, dungeon, backend),
+				"adaptive", backend.parallelism(), null, backend);
+		File search = File.createTempFile("probe", ".png"), path = File.createTempFile("probe", ".png");
+		try {
+			String[] files = {search.getPath(), path.getPath()};
+			boolean[] paths = {false, true};
+			nanos = new long[BAND_ROWS.length];
+			for (int c = 0; c < BAND_ROWS.length; c++) {
+				long fastest = Long.MAX_VALUE;
+				for (int run = 0; run <= PROBE_RUNS; run++) {   // run 0 warms up
+					long start = System.nanoTime();
+					dungeon.encodePowerMaps(files, paths, backend, BAND_ROWS[c]);
+					if (run > 0) fastest = Math.min(fastest, System.nanoTime() - start);
+				}
+				nanos[c] = fastest;
+			}
+		} finally {
+			search.delete();
+			path.delete();
+		}
+		best = new Cutoffs(best.huntBlocks, best.chunkSteps, pick("bandRows", BAND_ROWS, nanos, best.bandRows, out));
+		backend.useCutoffs(best);
+		return best;
+	}
+
+	// the searches of the job's multiplier, at least enough that a probe hunt takes milliseconds
+	private static int probeSearches(ExecutionBackend backend, int gate, double multiplier) {
+		return (int) Math.max(Math.max(PROBE_SEARCHES, 64 * backend.parallelism()),
+				Math.min(Integer.MAX_VALUE, multiplier * (gate * 2.0) * (gate * 2.0) * DungeonMapParallel.RESOLUTION));
+	}
+
+	private static DungeonMapParallel probeDungeon(ExecutionBackend backend, DungeonMapParallel.Grids grids, int gate) {
+		return new DungeonMapParallel(-gate, gate, -gate, gate, PROBE_SEED, backend, grids);
+	}
+
+	// fastest of PROBE_RUNS hunts of the probe dungeon with the cutoffs backend has now
+	private static long probeHunt(ExecutionBackend backend, DungeonMapParallel.Grids grids, int gate, int searches,
+			String scheduler) {
+		long fastest = Long.MAX_VALUE;
+		for (int run = 0; run <= PROBE_RUNS; run++) {   // run 0 warms up
+			long nanos = timeHunt(backend, grids, gate, searches, scheduler);
+			if (run > 0) fastest = Math.min(fastest, nanos);
+		}
+		return fastest;
+	}
+
+	// one hunt of a fresh probe dungeon, in nanoseconds
+	private static long timeHunt(ExecutionBackend backend, DungeonMapParallel.Grids grids, int gate, int searches,
+			String scheduler) {
+		DungeonMapParallel dungeon = probeDungeon(backend, grids, gate);
+		HuntParallel[] hunt = HuntLaunch.spatial(new Random(PROBE_SEED), searches, dungeon, backend);
+		long start = System.nanoTime();
+		DungeonHunterParallel.runHunt(hunt, scheduler, backend.parallelism(), null, backend);
+		return System.nanoTime() - start;
+	}
+
+	// the fastest candidate if it beats current by MIN_GAIN, else current; prints the timings
+	private static int pick(String stage, int[] candidates, long[] nanos, int current, PrintStream out) {
+		long currentNanos = Long.MAX_VALUE;
+		int fastest = 0;
+		StringBuilder line = new StringBuilder();
+		for (int c = 0; c < candidates.length; c++) {
+			if (candidates[c] == current) currentNanos = nanos[c];
+			if (nanos[c] < nanos[fastest]) fastest = c;
+			line.append(String.format(Locale.ROOT, " %d:%.2f", candidates[c], nanos[c] / 1e6));
+		}
+		int chosen = nanos[fastest] < (1 - MIN_GAIN) * currentNanos ? candidates[fastest] : current;
+		out.printf("\t %-10s %s -> %d\n", stage, line, chosen);
+		return chosen;
+	}
+}
@@ -16,11 +16,43 @@
  * to locate the global maximum.
  *
  * Usage:
- *   java DungeonHunterParallel <gridSize> <numSearches> <randomSeed>
+ *   java DungeonHunterParallel <gridSize> <numSearches> <randomSeed> [options]
+ *   java DungeonHunterParallel --batch[=FILE] [options]
+ *   java DungeonHunterParallel --worker=PORT --token=TOKEN [options]   (started by --processes)
+ *
+ * Options:
+ *   --backend=KIND[:N]              threads for every parallel stage: forkjoin[:N] (default),
+ *                                   threads[:N], virtual[:N] (Java 21+) or sequential - see ExecutionBackend
+ *   --scheduler=adaptive|recursive|regions
+ *                                   adaptive chunks of hunters (default), the recursive HuntTask split, or
+ *                                   one strip of the dungeon per worker, hunters handed between them - see HuntRegions
+ *   --workers=N                     number of hunt workers (default: the parallelism of the backend)
+ *   --worker-stats                  print how much of the hunt each worker did
+ *   --metrics[=FILE]                print phase timings and a step histogram, and write a report
+ *                                   to FILE (default metrics.json; one CSV row per hunter if FILE ends in .csv)
+ *   --launch=spatial|random|stream  distinct start cells in Z-order (default), in the order drawn, or
+ *                                   drawn by the workers as they hunt - see HuntStream
+ *   --batch[=FILE]                  run the jobs in FILE (default: standard input) one after the other,
+ *                                   one result line per job - see HuntBatch
+ *   --processes=N                   hunt on N worker JVMs, each owning a strip of the dungeon - see HuntProcesses
+ *   --tune                          probe the sequential cutoffs for this machine and dungeon size, save them
+ *                                   to the profile and exit - see CutoffProfile
+ *   --cutoffs=FILE                  the cutoff profile (default cutoffs.properties), read by every run
+ *   --truth[=K]                     scan every cell for the true maximum (and the K highest peaks) and check
+ *                                   the hunt against it - see ManaScan
+ *   --basins[=FILE]                 record where every climb leads and write the peaks found with their
+ *                                   basin sizes to FILE (default basins.csv) - see BasinMap
+ *   --owners[=FILE]                 keep the hunter that claimed every cell and write the end of every path
+ *                                   to FILE (default owners.csv) - see PathOwners
  *
  */
 
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ForkJoinPool; //for the random search locations
 import java.util.concurrent.RecursiveTask;
@@ -35,85 +67,312 @@ public class DungeonHunterParallel {
 	private static void tock(){endTime=System.currentTimeMillis(); }
 
     public static void main(String[] args)  {
+        int status = run(args);
+        if (status != 0) System.exit(status);
+    }
+
+    /**
+     * Runs the program with the given command line and returns its exit status
+     * (0 on success, 1 on bad arguments), without ending the JVM.
+     */
+    static int run(String[] args)  {
     	
     	double xmin, xmax, ymin, ymax; //dungeon limits - dungeons are square
     	DungeonMapParallel dungeon;  //object to store the dungeon as a grid
-    	
-        // numSearches is a multiplier used to calculate the total number of searches to perform
-     	int numSearches=10, gateSize = 10;		
     	HuntParallel [] searches;		// Array of searches
-  
-    	Random rand = new Random();  //the random number generator
-      	int randomSeed=0;  //set seed to have predictability for testing
-        
-    	if (args.length!=3) {
-    		System.out.println("Incorrect number of command line arguments provided.");
-    		System.exit(0);
-    	}
-    	
+    	RunOptions options;
+    	ExecutionBackend backend;
     	
     	/* Read argument values */
       	try {
-    	    gateSize=Integer.parseInt( args[0] );
-    	    if (gateSize <= 0) {
-             throw new IllegalArgumentException("Grid size must be greater than 0.");
-            }
-            //dungeonSize = gateSize;
-    	    numSearches = (int) (Double.parseDouble(args[1])*(gateSize*2)*(gateSize*2)*DungeonMapParallel.RESOLUTION);
-    	
-    	    randomSeed=Integer.parseInt( args[2] );
-            if (randomSeed < 0) {
-                throw new IllegalArgumentException("Random seed must be non-negative.");
-            } else if(randomSeed>0)  rand = new Random(randomSeed);  // BUG FIX
+      	    options = RunOptions.command(args);
+    	    backend = ExecutionBackend.parse(options.backend);
+    	    if (options.scheduler.equals("recursive") && backend.forkJoinPool() == null) {
+    	        backend.close();
+    	        throw new IllegalArgumentException("The recursive scheduler only runs on the forkjoin backend.");
+    	    }
         } catch (NumberFormatException e) {
             System.err.println("Error: All arguments must be numeric.");
-            System.exit(1);
+            return 1;
         } catch (IllegalArgumentException e) {
             System.err.println("Error: " + e.getMessage());
-            System.exit(1);
+            return 1;
         }
+        // numSearches is the multiplier times the number of cells, the total number of searches to perform
+     	int numSearches = options.numSearches, gateSize = options.gateSize;
+      	int randomSeed = options.randomSeed;  //set seed to have predictability for testing
+    	Random rand = new Random();  //the random number generator
+    	if(randomSeed>0)  rand = new Random(randomSeed);  // BUG FIX
+      	String scheduler = options.scheduler, launch = options.launch;
+      	int workers = options.workers == 0 ? backend.parallelism() : options.workers;
+      	WorkerLoads loads = options.workerStats || options.metricsFile != null ? new WorkerLoads() : null;
+
+    	try {   // every branch runs on backend, which is shut down once when the run ends
+    	    CutoffProfile cutoffs;
+    	    try {
+    	        cutoffs = CutoffProfile.load(new File(options.cutoffsFile));
+    	    } catch (IOException | IllegalArgumentException e) {
+    	        System.err.println("Error: cannot read the cutoff profile " + options.cutoffsFile + ": " + e.getMessage());
+    	        return 1;
+    	    }
+    	    if (options.tune) {
+    	        try {
+    	            // the entry goes under the size of the probe, which is the job's unless its hunt is too long to probe
+    	            int gate = CutoffProfile.probeGate(backend, gateSize, options.multiplier);
+    	            int rows = (int) Math.round(2.0 * gate * DungeonMapParallel.RESOLUTION);   // as the map computes it
+    	            System.out.printf("\t tuning cutoffs for %s, rows: %d (job rows: %d)\n", CutoffProfile.machine(backend), rows,
+    	                    Math.round(2.0 * gateSize * DungeonMapParallel.RESOLUTION));
+    	            cutoffs.put(backend, rows, CutoffProfile.tune(backend, gate, options.multiplier, System.out));
+    	            cutoffs.save();
+    	            System.out.printf("\t %s saved to %s\n", cutoffs.get(backend, rows), cutoffs.file());
+    	            return 0;
+    	        } catch (IOException e) {
+    	            System.err.println("Error: " + e.getMessage());
+    	            return 1;
+    	        }
+    	    }
+    	    if (options.batchFile != null) {
+    	        return new HuntBatch(new HuntDriver(backend, scheduler, launch, workers, null), options.manaCacheDir, options.strategies, options.truth > 0, cutoffs)
+    	                .run(options.batchFile, System.out, System.err);
+    	    }
+    	    if (options.strategies.length > 1) {   // one job, hunted once per strategy
+    	        StringBuilder job = new StringBuilder();
+    	        for (String arg : args) if (!arg.startsWith("--")) job.append(arg).append(' ');
+    	        try {
+    	            return new HuntBatch(new HuntDriver(backend, scheduler, launch, workers, null), options.manaCacheDir, options.strategies, options.truth > 0, cutoffs)
+    	                    .run(new BufferedReader(new StringReader(job.toString())), System.out, System.err);
+    	        } catch (IOException e) {
+    	            System.err.println("Error: " + e.getMessage());
+    	            return 1;
+    	        }
+    	    }
+    	    if (options.workerPort > 0) {
+    	        return HuntProcesses.work(options.workerPort, options.workerToken, backend, options.manaCacheDir);
+    	    }
  
-    	xmin =-gateSize;
-    	xmax = gateSize;
-    	ymin = -gateSize;
-    	ymax = gateSize;
-    	dungeon = new DungeonMapParallel(xmin,xmax,ymin,ymax,randomSeed); // Initialize dungeon
+    	    RunMetrics metrics = new RunMetrics(loads);
+	    	xmin =-gateSize;
+	    	xmax = gateSize;
+	    	ymin = -gateSize;
+	    	ymax = gateSize;
+	    	long phase = metrics.start();
+	    	// the workers hold the grids of a multi-process hunt, the coordinator only needs the coordinates;
+	    	// the owners of the regions allocate the pages of their strips themselves (first touch, see HuntRegions)
+	    	dungeon = new DungeonMapParallel(xmin,xmax,ymin,ymax,randomSeed,backend,
+	    	        options.processes > 0 || scheduler.equals("regions") ? new DungeonMapParallel.Grids(true) : null); // Initialize dungeon
+	    	metrics.end(RunMetrics.Phase.MAP_INIT, phase);
+	    	backend.useCutoffs(cutoffs.get(backend, dungeon.getRows()));
+	    	BasinMap basins = null;
+	    	if (options.basinsFile != null) {
+	    	    try {
+	    	        basins = new BasinMap(dungeon.getRows(), dungeon.getColumns());
+	    	    } catch (IllegalArgumentException e) {
+	    	        System.err.println("Error: " + e.getMessage());
+	    	        return 1;
+	    	    }
+	    	    dungeon.useBasins(basins);
+	    	}
+	    	PathOwners owners = null;
+	    	if (options.ownersFile != null) {
+	    	    owners = new PathOwners(numSearches, dungeon.getRows(), dungeon.getColumns());
+	    	    dungeon.useOwners(owners);
+	    	}
+	    	ManaCache manaCache = null;
+	    	if (options.manaCacheDir != null && options.processes == 0) {   // the workers of a multi-process hunt open their own
+	    	    if (randomSeed == 0) {
+	    	        System.err.println("Warning: no mana cache without a seed, the dungeon is different every run.");
+	    	    } else {
+	    	        try {
+	    	            manaCache = ManaCache.open(new File(options.manaCacheDir), randomSeed, dungeon);
+	    	            dungeon.useManaCache(manaCache);
+	    	        } catch (IOException e) {
+	    	            System.err.println("Error: " + e.getMessage());
+	    	            return 1;
+	    	        }
+	    	    }
+	    	}
     	
-    	int dungeonRows=dungeon.getRows();
-    	int dungeonColumns=dungeon.getColumns();
-     	searches= new HuntParallel[numSearches];
+	    	int dungeonRows=dungeon.getRows();
+	    	int dungeonColumns=dungeon.getColumns();
+	    	HuntProcesses cluster = null;
+	    	if (options.processes > 0) {
+	    	    try {
+	    	        cluster = new HuntProcesses(options.processes, options.workerBackend, options.manaCacheDir);
+	    	        cluster.start(dungeonRows, gateSize, randomSeed);   // the workers build their maps meanwhile
+	    	    } catch (IOException | IllegalArgumentException e) {
+	    	        System.err.println("Error: " + e.getMessage());
+	    	        return 1;
+	    	    }
+	    	}
+	        ManaScan.Result groundTruth = options.truth > 0 ? ManaScan.scan(dungeon, options.truth, backend) : null;   // before the timed hunt
+	        SearchStrategy strategy = options.strategies[0];
+	        HuntDriver driver = new HuntDriver(backend, scheduler, launch, workers, loads);
+	        if (strategy.searchesInLaunch()) tick();  // a coarse pass is part of the hunt, time it too
+	        // distinct start cells in Z-order, or the original draw order, or whatever the strategy starts from
+	        phase = metrics.start();
+	        searches = strategy.launch(rand, numSearches, dungeon, driver);
+	        metrics.end(RunMetrics.Phase.LAUNCH, phase);
 
-        for (int i = 0; i < numSearches; i++) {
-            searches[i] = new HuntParallel(i+1, rand.nextInt(dungeonRows),
-            rand.nextInt(dungeonColumns), dungeon);
-        }
-
-    	tick();  //start timer
+	    	if (!strategy.searchesInLaunch()) tick();  //start timer
+	        phase = metrics.start();
         
-        // Prepare tasks
-        ForkJoinPool forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
-        SearchResult result = forkJoinPool.invoke(new HuntTask(searches, 0, numSearches));
+	        // Prepare tasks
+	        SearchResult result;
+	        if (options.processes > 0) {
+	            try {
+	                result = cluster.hunt(searches, dungeon);
+	            } catch (IOException e) {
+	                System.err.println("Error: " + e.getMessage() + (e.getCause() != null ? " " + e.getCause() : ""));
+	                return 1;
+	            }
+	        } else {
+	            result = strategy.hunt(searches, driver);
+	        }
+	        if (basins != null) basins.finish();   // the paths that were still being climbed when others joined them
+	        metrics.end(RunMetrics.Phase.HUNT, phase);
 
-        int max = result.maxMana;
-        int finder = result.finderIndex;
+	        phase = metrics.start();
+	        int max = result.maxMana;
+	        int finder = result.finderIndex;
+			long tmp=dungeon.getGridPointsEvaluated();
+	        metrics.end(RunMetrics.Phase.REDUCE, phase);
 
-   		tock(); //end timer
+	   		tock(); //end timer
         
-		System.out.printf("\t dungeon size: %d,\n", gateSize);
-		System.out.printf("\t rows: %d, columns: %d\n", dungeonRows, dungeonColumns);
-		System.out.printf("\t x: [%f, %f], y: [%f, %f]\n", xmin, xmax, ymin, ymax );
-		System.out.printf("\t Number searches: %d\n", numSearches );
-
-		/*  Total computation time */
-		System.out.printf("\n\t time: %d ms\n",endTime - startTime );
-		int tmp=dungeon.getGridPointsEvaluated();
-		System.out.printf("\tnumber dungeon grid points evaluated: %d  (%2.0f%s)\n",tmp,(tmp*1.0/(dungeonRows*dungeonColumns*1.0))*100.0, "%");
-
-		/* Results*/
-		System.out.printf("Dungeon Master (mana %d) found at:  ", max );
-		System.out.printf("x=%.1f y=%.1f\n\n",dungeon.getXcoord(searches[finder].getPosRow()), dungeon.getYcoord(searches[finder].getPosCol()) );
-		dungeon.visualisePowerMap("visualiseSearch.png", false);
-		dungeon.visualisePowerMap("visualiseSearchPath.png", true);
+			System.out.printf("\t dungeon size: %d,\n", gateSize);
+			System.out.printf("\t rows: %d, columns: %d\n", dungeonRows, dungeonColumns);
+			System.out.printf("\t x: [%f, %f], y: [%f, %f]\n", xmin, xmax, ymin, ymax );
+			System.out.printf("\t Number searches: %d\n", numSearches );
+			String report = strategy.report(searches);
+			if (report != null) {
+				System.out.print(report);
+			} else if (strategy.hunted(searches) != numSearches) System.out.printf("\t Distinct start cells: %d\n", strategy.hunted(searches) );
+
+			/*  Total computation time */
+			System.out.printf("\n\t time: %d ms\n",endTime - startTime );
+			if (options.workerStats) loads.print(metrics.nanos(RunMetrics.Phase.HUNT));
+			System.out.printf("\tnumber dungeon grid points evaluated: %d  (%2.0f%s)\n",tmp,(tmp*1.0/((long)dungeonRows*dungeonColumns*1.0))*100.0, "%");
+
+			if (basins != null) {
+				List<BasinMap.Peak> peaks = basins.peaks();
+				System.out.printf("\t peaks found: %d, highest mana %d with a basin of %d cells\n", peaks.size(),
+						peaks.get(0).mana, peaks.get(0).cells.sum());
+			}
+
+			/* Results*/
+			System.out.printf("Dungeon Master (mana %d) found at:  ", max );
+			System.out.printf("x=%.1f y=%.1f\n\n",dungeon.getXcoord(searches[finder].getPosRow()), dungeon.getYcoord(searches[finder].getPosCol()) );
+			if (groundTruth != null) printTruth(groundTruth, max, dungeon, basins, owners);
+			// both images in one pass over the grid, on the same backend as the hunt
+			phase = metrics.start();
+			if (options.processes == 0) dungeon.visualisePowerMaps("visualiseSearch.png", "visualiseSearchPath.png", backend);
+			metrics.end(RunMetrics.Phase.IMAGE, phase);
+			if (basins != null) {
+				try {
+					basins.write(options.basinsFile, dungeon);
+					System.out.println("\t peaks saved to " + options.basinsFile);
+				} catch (IOException e) {
+					System.err.println("Error: " + e.getMessage());
+				}
+			}
+			if (owners != null) {
+				try {
+					owners.write(options.ownersFile, dungeon);
+					System.out.println("\t path ends saved to " + options.ownersFile);
+				} catch (IOException e) {
+					System.err.println("Error: " + e.getMessage());
+				}
+			}
+			if (manaCache != null) {
+				manaCache.close();
+				System.out.printf("\t mana cache: %d new cells in %s\n", manaCache.added(), manaCache.file());
+			}
+
+			if (options.metricsFile != null) {
+				metrics.printPhases();
+				metrics.printHistogram();
+				metrics.describe("gateSize", gateSize);
+				metrics.describe("searches", numSearches);
+				metrics.describe("distinctStarts", strategy.hunted(searches));
+				metrics.describe("seed", randomSeed);
+				metrics.describe("backend", backend.toString());
+				metrics.describe("strategy", strategy.name());
+				metrics.describe("scheduler", scheduler);
+				metrics.describe("cutoffs", backend.cutoffs().toString());
+				metrics.describe("workers", workers);
+				metrics.describe("rows", dungeonRows);
+				metrics.describe("columns", dungeonColumns);
+				metrics.describe("evaluated", tmp);
+				GridStatistics.Snapshot stats = dungeon.getStatistics();
+				metrics.describe("manaMin", stats.min);
+				metrics.describe("manaMedian", stats.percentile(0.5));
+				metrics.describe("manaP99", stats.percentile(0.99));
+				metrics.describe("manaMax", stats.max);
+				metrics.describe("maxMana", max);
+				metrics.describe("finder", searches[finder].getID());
+				if (basins != null) metrics.describe("peaks", basins.peaks().size());
+				if (groundTruth != null) {
+					metrics.describe("trueMax", groundTruth.max());
+					metrics.describe("trueMaxFound", max == groundTruth.max());
+				}
+				try {
+					metrics.write(options.metricsFile, searches);
+					System.out.println("metrics saved to " + options.metricsFile);
+				} catch (IOException e) {
+					System.err.println("Error: " + e.getMessage());
+				}
+			}
+	    	return 0;
+    	} finally {
+    	    backend.close();
+    	}
+    }
+
+    /**
+     * Prints the true maximum and the other peaks of the scan, and whether the hunt found them:
+     * the Dungeon Master for the maximum, the basin of the peak with --basins, the hunter that
+     * claimed it with --owners.
+     */
+    private static void printTruth(ManaScan.Result truth, int max, DungeonMapParallel dungeon, BasinMap basins,
+            PathOwners owners) {
+        ManaScan.Peak top = truth.peaks.get(0);
+        System.out.printf("\t true maximum: mana %d at x=%.1f y=%.1f (%d cells scanned in %d ms), %s%s\n", top.mana,
+                dungeon.getXcoord(top.x), dungeon.getYcoord(top.y), truth.cells, truth.nanos / 1000000,
+                max == top.mana ? "found by the hunt" : "MISSED by the hunt, which is " + (top.mana - max) + " below it",
+                ownerOf(top, owners));
+        for (int k = 1; k < truth.peaks.size(); k++) {
+            ManaScan.Peak peak = truth.peaks.get(k);
+            long basin = basins == null ? -1 : basins.basin(peak.x, peak.y);
+            System.out.printf("\t peak %d: mana %d at x=%.1f y=%.1f%s%s\n", k + 1, peak.mana, dungeon.getXcoord(peak.x),
+                    dungeon.getYcoord(peak.y), basins == null ? "" : basin < 0 ? ", not reached" : ", basin of " + basin + " cells",
+                    ownerOf(peak, owners));
+        }
+    }
+
+    // ", claimed by hunter N" if a hunter claimed peak
+    private static String ownerOf(ManaScan.Peak peak, PathOwners owners) {
+        int owner = owners == null ? -1 : owners.owner(peak.x, peak.y);
+        return owner < 0 ? "" : ", claimed by hunter " + owner;
+    }
+
+    /**
+     * Runs all the searches with the given scheduler (adaptive, recursive or regions) on backend.
+     */
+    static SearchResult runHunt(HuntParallel[] searches, String scheduler, int workers, WorkerLoads loads, ExecutionBackend backend) {
+        if (scheduler.equals("recursive")) {
+            return backend.forkJoinPool().invoke(new HuntTask(searches, 0, searches.length,
+                    backend.cutoffs().huntThreshold(searches.length, backend.parallelism()), loads));
+        }
+        if (scheduler.equals("regions")) return new HuntRegions(searches, workers, loads).run(backend);
+        return new HuntScheduler(searches, workers, loads).run(backend);
+    }
+
+    /**
+     * Runs all the searches on the pool, splitting the array down to blocks of at most threshold hunters.
+     * Package-private so the benchmarks can run the hunt at different cutoffs.
+     */
+    static SearchResult hunt(ForkJoinPool pool, HuntParallel[] searches, int threshold) {
+        return pool.invoke(new HuntTask(searches, 0, searches.length, threshold, null));
     }
 
     /**
@@ -121,9 +380,9 @@ public class DungeonHunterParallel {
      * i.e. Stores the hunter that found the dungeon master
      * and the mana value of the dungeon master.
      */
-    private static class SearchResult {
-        private int maxMana;
-        private int finderIndex;
+    static class SearchResult {
+        final int maxMana;
+        final int finderIndex;
 
         public SearchResult(int maxMana, int finderIndex) {
             this.maxMana = maxMana;
@@ -137,17 +396,20 @@ public class DungeonHunterParallel {
      * and the dungeon master's location.
      */
     private static class HuntTask extends RecursiveTask<SearchResult> {
+        private static final long serialVersionUID = 1L;
         private final int THRESHOLD;    
 
         private final HuntParallel[] searches;
         private final int start;
         private final int end;
+        private final WorkerLoads loads;    // null when worker load is not recorded
 
-        public HuntTask(HuntParallel[] searches, int start, int end) {
+        public HuntTask(HuntParallel[] searches, int start, int end, int threshold, WorkerLoads loads) {
             this.searches = searches;
             this.start = start;
             this.end = end;
-            THRESHOLD = (int)(searches.length / (Runtime.getRuntime().availableProcessors() * 6));
+            this.loads = loads;
+            THRESHOLD = threshold;
         }
 
         @Override
@@ -162,8 +424,8 @@ public class DungeonHunterParallel {
                     return seqCompute();
                 }
 
-                HuntTask left = new HuntTask(searches, start, mid);
-                HuntTask right = new HuntTask(searches, mid, end);
+                HuntTask left = new HuntTask(searches, start, mid, THRESHOLD, loads);
+                HuntTask right = new HuntTask(searches, mid, end, THRESHOLD, loads);
                 left.fork();
                 SearchResult rightResult = right.compute();
                 SearchResult lefResult = left.join();
@@ -174,8 +436,11 @@ public class DungeonHunterParallel {
         private SearchResult seqCompute() {
             int max = Integer.MIN_VALUE;
             int finder = -1;
+            long begin = System.nanoTime();
+            long steps = 0;
             for (int i = start; i < end; i++) {
                 int localMax = searches[i].findManaPeak();
+                steps += searches[i].getSteps();
                 if (localMax > max) {
                     max = localMax;
                     finder = i;
@@ -184,7 +449,11 @@ public class DungeonHunterParallel {
                     System.out.println("Shadow " + searches[i].getID() + 
                     " finished at " + localMax + " in " + searches[i].getSteps());
                 }
-            } return new SearchResult(max, finder);
+            }
+            long busy = System.nanoTime() - begin;
+            if (loads != null) loads.record(searches, start, end, busy);
+            HuntEvents.chunk(start, end - start, steps, busy);
+            return new SearchResult(max, finder);
         }
     }
 }
\ No newline at end of file
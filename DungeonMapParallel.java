@@ -15,77 +15,173 @@
  * 2025
  */
 
-import java.awt.Color;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Random;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-import javax.imageio.ImageIO;
 
 public class DungeonMapParallel {
 
 	public static final int PRECISION = 10000;
 	public static final int RESOLUTION = 5;
 
+	// image output: scanlines per band encoded by one task, and the 256 colours of the gradient
+	static final int IMAGE_BAND_ROWS = 64;
+	private static final byte[] PALETTE = buildPalette();
+
     // Shared dx and dy objects to avoid reinitialization everytime the method is called.
 	// Rember to change later if automarker does not expect extra fields.
     public static final int[] dirX = {-1, 1, 0, 0, -1, 1, -1, 1};
     public static final int[] dirY  = {0, 0, -1, 1, -1, -1, 1, 1};
 
 	private final int rows, columns; //dungeonGrid size
+	private final int stride;        // 1, or the spacing of a coarse map in cells of the full one
 	private final double xmin, xmax, ymin, ymax; //x and y dungeon limits
-	private final int [][] manaMap;
-	private final int [][] visit;
-	private int dungeonGridPointsEvaluated;
+	private final IntGrid manaMap;  // tiled storage, paged on large dungeons - see IntGrid
+	private final VisitBits visit;  // one bit per cell, addressed like manaMap - see VisitBits
+	private final GridStatistics statistics;  // evaluated count, min, max and histogram, per thread - see GridStatistics
     private final double bossX;
     private final double bossY;
     private final double decayFactor;
 
+    // Terms of the mana function that depend on one coordinate only, one entry per row (x) or column (y).
+    // Filled once in the constructor, so only the mixed terms need transcendental calls per cell.
+    private final double[] xCoord, cosX5, sinX6, sinX, dxSquared, bossDx15Squared;
+    private final double[] yCoord, sinY5, cosY4, logY, sinY, dySquared, bossDy10Squared;
+
+    private ManaCache manaCache;    // values kept from earlier runs, null when there is none
+    private BasinMap basins;        // where the climbs lead, null unless --basins
+    private PathOwners owners;      // who claimed every cell, null unless --owners
+
     //constructor
 	public DungeonMapParallel(	double xmin, double xmax, 
 			double ymin, double ymax, 
 			int seed) {
+		this(xmin, xmax, ymin, ymax, seed, ExecutionBackend.common());
+	}
+
+	/**
+	 * Same as DungeonMapParallel(xmin, xmax, ymin, ymax, seed), filling the lookup tables on backend.
+	 */
+	DungeonMapParallel(double xmin, double xmax, double ymin, double ymax, int seed, ExecutionBackend backend) {
+		this(xmin, xmax, ymin, ymax, seed, backend, null);
+	}
+
+	/**
+	 * Same as DungeonMapParallel(xmin, xmax, ymin, ymax, seed, backend), on grids taken from
+	 * grids (cleared in O(1)) instead of fresh ones. Only one map of a Grids can be in use at a time.
+	 */
+	DungeonMapParallel(double xmin, double xmax, double ymin, double ymax, int seed, ExecutionBackend backend, Grids grids) {
+		this(xmin, xmax, ymin, ymax, seed==0 ? new Random() : new Random(seed), backend, grids); //no fixed seed if 0
+	}
+
+	private DungeonMapParallel(double xmin, double xmax, double ymin, double ymax, Random rand, ExecutionBackend backend, Grids grids) {
+		// Randomly place the boss peak - arguments are evaluated left to right, so x is drawn first as before
+		this(xmin, xmax, ymin, ymax, xmin + (xmax - xmin) * rand.nextDouble(), ymin + (ymax - ymin) * rand.nextDouble(),
+				1, backend, grids);
+	}
+
+	/**
+	 * The lookup tables of the dungeon of seed and no grids at all, for ManaScan, which computes
+	 * every cell with scanMana and stores none. Nothing that reads or writes the grids may be
+	 * called on it; it leaves the grids of a batch (Grids) alone.
+	 */
+	static DungeonMapParallel tablesOnly(double xmin, double xmax, double ymin, double ymax, int seed, ExecutionBackend backend) {
+		return new DungeonMapParallel(xmin, xmax, ymin, ymax, seed, backend, Grids.NONE);
+	}
+
+	/**
+	 * A map of the same dungeon (limits and boss) that only has every stride-th row and column:
+	 * cell (x, y) of the coarse map is cell (x*stride, y*stride) of this one, with the same mana.
+	 * Used by the coarse pass of HuntCoarse; it gets fresh grids.
+	 */
+	DungeonMapParallel coarsened(int stride, ExecutionBackend backend) {
+		return new DungeonMapParallel(xmin, xmax, ymin, ymax, bossX, bossY, stride, backend, null);
+	}
+
+	private DungeonMapParallel(double xmin, double xmax, double ymin, double ymax, double bossX, double bossY,
+			int stride, ExecutionBackend backend, Grids grids) {
 		super();
 		this.xmin = xmin;
 		this.xmax = xmax;
 		this.ymin = ymin;
 		this.ymax = ymax;
 
-		this.rows = (int) Math.round((xmax-xmin)*RESOLUTION); //the grid resolution is fixed
-		this.columns =  (int) Math.round((ymax-ymin)*RESOLUTION);//the grid resolution is fixed
+		int fullRows = (int) Math.round((xmax-xmin)*RESOLUTION); //the grid resolution is fixed
+		int fullColumns = (int) Math.round((ymax-ymin)*RESOLUTION);//the grid resolution is fixed
+		this.rows = (fullRows + stride - 1) / stride;
+		this.columns = (fullColumns + stride - 1) / stride;
+		this.stride = stride;
 
-		// Randomly place the boss peak
-		Random rand;
-		if(seed==0) rand= new Random(); //no fixed seed
-		else rand= new Random(seed);
-        double xRange = xmax - xmin;
-        this.bossX = xmin + (xRange) * rand.nextDouble();
-        this.bossY = ymin + (ymax - ymin) * rand.nextDouble();
+        this.bossX = bossX;
+        this.bossY = bossY;
      	// Calculate decay factor based on range
-        this.decayFactor = 2.0 / (xRange * 0.1);  // adjust scaling factor to control width
-
-		manaMap = new int[rows][columns];
-		visit = new int[rows][columns];
-		dungeonGridPointsEvaluated = 0;
-
-		/* Terrain initialization, uses Arrays.fill */
-		for (int i = 0; i < rows; i++) {
-			Arrays.fill(manaMap[i], Integer.MIN_VALUE);
-			Arrays.fill(visit[i], -1);
+        this.decayFactor = 2.0 / ((xmax - xmin) * 0.1);  // adjust scaling factor to control width
+
+		/* Lookup tables for the separable terms, filled in parallel */
+		double xStep = (xmax - xmin) / fullRows;
+		double yStep = (ymax - ymin) / fullColumns;
+		xCoord = new double[rows];
+		backend.setAll(xCoord, x -> xmin + xStep * (x * stride));
+		cosX5 = new double[rows];
+		backend.setAll(cosX5, x -> Math.cos(xCoord[x] / 5.0));
+		sinX6 = new double[rows];
+		backend.setAll(sinX6, x -> Math.sin(xCoord[x] / 6.0));
+		sinX = new double[rows];
+		backend.setAll(sinX, x -> Math.sin(xCoord[x]));
+		dxSquared = new double[rows];
+		backend.setAll(dxSquared, x -> (xCoord[x] - bossX) * (xCoord[x] - bossX));
+		bossDx15Squared = new double[rows];
+		backend.setAll(bossDx15Squared, x -> (xCoord[x] - bossX - 15) * (xCoord[x] - bossX - 15));
+
+		yCoord = new double[columns];
+		backend.setAll(yCoord, y -> ymin + yStep * (y * stride));
+		sinY5 = new double[columns];
+		backend.setAll(sinY5, y -> Math.sin(yCoord[y] / 5.0));
+		cosY4 = new double[columns];
+		backend.setAll(cosY4, y -> Math.cos(yCoord[y] / 4.0));
+		logY = new double[columns];
+		backend.setAll(logY, y -> Math.log(Math.abs(yCoord[y] - Math.PI * 2) + 0.1));
+		sinY = new double[columns];
+		backend.setAll(sinY, y -> Math.sin(yCoord[y]));
+		dySquared = new double[columns];
+		backend.setAll(dySquared, y -> (yCoord[y] - bossY) * (yCoord[y] - bossY));
+		bossDy10Squared = new double[columns];
+		backend.setAll(bossDy10Squared, y -> (yCoord[y] - bossY + 10) * (yCoord[y] - bossY + 10));
+
+		/* Terrain initialization, the grids fill themselves */
+		if (grids == Grids.NONE) {
+			manaMap = null;
+			visit = null;
+		} else if (grids == null) {
+			manaMap = IntGrid.create(rows, columns, Integer.MIN_VALUE);
+			visit = new VisitBits(manaMap);
+		} else {
+			grids.take(rows, columns);
+			manaMap = grids.manaMap;
+			visit = grids.visit;
 		}
+		statistics = new GridStatistics();
+	}
+
+	// has the mana of this site been evaluated?
+	boolean evaluated(int x, int y) {
+		return manaMap.get(x, y) != Integer.MIN_VALUE;
 	}
 
 	// has this site been visited before?
 	boolean visited( int x, int y) {
-		 return visit[x][y] != -1;
+		 return visit.get(manaMap.index(x, y));
 	}
 
-	void setVisited( int x, int y, int id) {
-		if (visit[x][y]==-1) //don't reset
-			visit[x][y]= id;
+	/**
+	 * Claims the site (x, y) for hunter id. Only the first hunter to get here wins,
+	 * the site is never reset. The id is not stored in the visit bits (see VisitBits), only
+	 * noted in PathOwners when the run keeps owners.
+	 * @return true if the site was claimed by this call, false if it was already visited
+	 */
+	boolean setVisited( int x, int y, int id) {
+		if (!visit.set(manaMap.index(x, y))) return false;
+		if (owners != null) owners.claim(id, x, y);
+		return true;
 	}
 
 	 /**
@@ -97,35 +193,107 @@ public class DungeonMapParallel {
 	     * @return A double value representing the mana value at (x, y).
 	     */
 	int getManaLevel( int x, int y) {
-		if (visited(x,y)) return manaMap[x][y];  //don't recalculate 
-		if (manaMap[x][y]>Integer.MIN_VALUE) return manaMap[x][y];
+		long index = manaMap.index(x, y);
+		int stored = manaMap.getAt(index);
+		if (stored>Integer.MIN_VALUE) return stored;  //don't recalculate 
 		
-		/* Calculate the coordinates of the point in the ranges */
-		double x_coord = xmin + ( (xmax - xmin) / rows ) * x;
-		double y_coord = ymin + ( (ymax - ymin) / columns ) * y;
-		double dx = x_coord - bossX;
-		double dy = y_coord - bossY;
-		double distanceSquared = dx * dx + dy * dy;
+		/* Transform to fixed point precision */
+		int fixedPoint = fixedPointMana(x, y);
+		// the value is deterministic, so only the hunter that stores it counts the evaluation
+		if (manaMap.compareAndSetAt(index, Integer.MIN_VALUE, fixedPoint))
+			statistics.local().record(fixedPoint);//keep count
+		return fixedPoint;
+	}
+
+	/**
+	 * Evaluates (x, y) and writes it to the map, like getManaLevel, if it is not in the map yet.
+	 * @return true if this call stored the value, so the caller counts the evaluation
+	 */
+	boolean storeMana(int x, int y) {
+		long index = manaMap.index(x, y);
+		if (manaMap.getAt(index) > Integer.MIN_VALUE) return false;
+		int fixedPoint = fixedPointMana(x, y);
+		if (!manaMap.compareAndSetAt(index, Integer.MIN_VALUE, fixedPoint)) return false;
+		statistics.local().record(fixedPoint);
+		return true;
+	}
+
+	// records a value this thread stored, fetching the thread's accumulator on first use
+	private GridStatistics.Accumulator record(GridStatistics.Accumulator accumulator, int value) {
+		if (accumulator == null) accumulator = statistics.local();
+		accumulator.record(value);
+		return accumulator;
+	}
+
+	/**
+	 * Reads the mana of cells from cache, and stores the ones computed here in it.
+	 * Set it before the hunt starts.
+	 */
+	void useManaCache(ManaCache cache) {
+		this.manaCache = cache;
+	}
+
+	/**
+	 * The mana of (x, y) in fixed point, as getManaLevel stores it, computed without reading
+	 * or writing the map, the cache or the evaluated count. For ManaScan.
+	 */
+	int scanMana(int x, int y) {
+		return (int)( PRECISION * mana(x, y) );
+	}
+
+	/**
+	 * Gives the mana and visit pages of rows [rowFrom, rowTo) memory now, from the calling
+	 * thread, if the grids allocate pages on first write. For HuntRegions.
+	 */
+	void touchRows(int rowFrom, int rowTo) {
+		for (int x = rowFrom; x < rowTo; x += PagedIntGrid.PAGE_SIZE) {
+			for (int y = 0; y < columns; y += PagedIntGrid.PAGE_SIZE) {
+				long index = manaMap.index(x, y);
+				manaMap.touch(index);
+				visit.touch(index);
+			}
+		}
+	}
+
+	// mana at (x, y) in fixed point, from the cache when an earlier run computed it
+	private int fixedPointMana(int x, int y) {
+		ManaCache cache = manaCache;
+		if (cache == null) return (int)( PRECISION * mana(x, y) );
+		if (cache.contains(x, y)) return cache.get(x, y);
+		int fixedPoint = (int)( PRECISION * mana(x, y) );
+		cache.put(x, y, fixedPoint);
+		return fixedPoint;
+	}
+
+	/**
+	 * The mana function itself, at grid cell (x, y).
+	 * Terms that depend on x or y only are read from the lookup tables.
+	 */
+	private double mana(int x, int y) {
+		double x_coord = xCoord[x];
+		double y_coord = yCoord[y];
+		double distanceSquared = dxSquared[x] + dySquared[y];
 		
 		/* The function to compute the mana value value */
-		/*DO NOT CHANGE this - unless you are testing, but then put it back!*/
-		double mana = (2 * Math.sin(x_coord + 0.1 * Math.sin(y_coord / 5.0) + Math.PI / 2) *
-                Math.cos((y_coord + 0.1 * Math.cos(x_coord / 5.0) + Math.PI / 2) / 2.0) +
-            0.7 * Math.sin((x_coord * 0.5) + (y_coord * 0.3) + 0.2 * Math.sin(x_coord / 6.0) + Math.PI / 2) +
-            0.3 * Math.sin((x_coord * 1.5) - (y_coord * 0.8) + 0.15 * Math.cos(y_coord / 4.0)) +
-            -0.2 * Math.log(Math.abs(y_coord - Math.PI * 2) + 0.1) +
-            0.5 * Math.sin((x_coord * y_coord) / 4.0 + 0.05 * Math.sin(x_coord)) +
-            1.5 * Math.cos((x_coord + y_coord) / 5.0 + 0.1 * Math.sin(y_coord)) +
-            3.0 * Math.exp(-0.03 * ((x_coord - bossX - 15) * (x_coord - bossX - 15) +
-                                    (y_coord - bossY + 10) * (y_coord - bossY + 10))) +
+		/* The formula itself must not change: the values have to stay those of the original
+		 * expression, which checks/OriginalDungeon.java keeps verbatim and ManaFormulaCheck compares with (make check).
+		 * Only its separable terms are computed once per row or column and looked up here:
+		 *   sinY5 = Math.sin(y_coord / 5.0)   cosX5 = Math.cos(x_coord / 5.0)
+		 *   sinX6 = Math.sin(x_coord / 6.0)   cosY4 = Math.cos(y_coord / 4.0)
+		 *   logY = Math.log(Math.abs(y_coord - Math.PI * 2) + 0.1)
+		 *   sinX = Math.sin(x_coord)          sinY = Math.sin(y_coord)
+		 *   bossDx15Squared, bossDy10Squared = the two squares in the second boss peak */
+		double mana = (2 * Math.sin(x_coord + 0.1 * sinY5[y] + Math.PI / 2) *
+                Math.cos((y_coord + 0.1 * cosX5[x] + Math.PI / 2) / 2.0) +
+            0.7 * Math.sin((x_coord * 0.5) + (y_coord * 0.3) + 0.2 * sinX6[x] + Math.PI / 2) +
+            0.3 * Math.sin((x_coord * 1.5) - (y_coord * 0.8) + 0.15 * cosY4[y]) +
+            -0.2 * logY[y] +
+            0.5 * Math.sin((x_coord * y_coord) / 4.0 + 0.05 * sinX[x]) +
+            1.5 * Math.cos((x_coord + y_coord) / 5.0 + 0.1 * sinY[y]) +
+            3.0 * Math.exp(-0.03 * (bossDx15Squared[x] + bossDy10Squared[y])) +
             8.0 * Math.exp(-0.01 * distanceSquared) +                 
             2.0 / (1.0 + 0.05 * distanceSquared)); 
-		
-		/* Transform to fixed point precision */
-		int fixedPoint = (int)( PRECISION * mana );
-		manaMap[x][y]=fixedPoint;
-		dungeonGridPointsEvaluated++;//keep count
-		return fixedPoint;
+		return mana;
 	}
 
 	//work out where to go next - move in direction of highest mana
@@ -136,35 +304,82 @@ public class DungeonMapParallel {
      * @return the direction of highest mana.
      */
 	HuntParallel.Direction getNextStepDirection(int x, int y) {
-		HuntParallel.Direction climbDirection = HuntParallel.Direction.STAY;
-	    int localMax = getManaLevel(x, y);
-
-	    final HuntParallel.Direction[] directions = {
-	        HuntParallel.Direction.LEFT,
-	        HuntParallel.Direction.RIGHT,
-	        HuntParallel.Direction.UP,
-	        HuntParallel.Direction.DOWN,
-	        HuntParallel.Direction.UP_LEFT,
-	        HuntParallel.Direction.UP_RIGHT,
-	        HuntParallel.Direction.DOWN_LEFT,
-	        HuntParallel.Direction.DOWN_RIGHT
-	    };
+	    return direction(climbStep(x, y));
+	}
 
+	/**
+	 * One step of the climb at (x, y): evaluates the 3x3 neighbourhood and picks the neighbour
+	 * with the highest mana in the same pass, in the order of dirX/dirY, moving only to a cell
+	 * that is strictly higher. Allocates nothing; decode the result with climbMana,
+	 * climbIndex and climbEvaluated.
+	 * @return the mana of the cell to move to (of (x, y) itself when staying), the index into
+	 *         dirX/dirY (or STAY_INDEX) and the number of cells this call evaluated, packed in a long
+	 */
+	long climbStep(int x, int y) {
+	    int evaluated = 0;
+	    GridStatistics.Accumulator accumulator = null;
+	    long index = manaMap.index(x, y);
+	    int localMax = manaMap.getAt(index);
+	    if (localMax == Integer.MIN_VALUE) {
+	        localMax = fixedPointMana(x, y);
+	        if (manaMap.compareAndSetAt(index, Integer.MIN_VALUE, localMax)) {
+	            accumulator = record(accumulator, localMax);
+	            evaluated++;
+	        }
+	    }
+	    int climb = STAY_INDEX;
 	    for (int i = 0; i < dirX.length; i++) {
 	        int newX = x + dirX[i];
 	        int newY = y + dirY[i];
+	        if (newX < 0 || newX >= rows || newY < 0 || newY >= columns) continue;
+
+	        index = manaMap.index(newX, newY);
+	        int power = manaMap.getAt(index);
+	        if (power == Integer.MIN_VALUE) {   // every neighbour is evaluated, as the block evaluation did
+	            power = fixedPointMana(newX, newY);
+	            if (manaMap.compareAndSetAt(index, Integer.MIN_VALUE, power)) {
+	                accumulator = record(accumulator, power);
+	                evaluated++;
+	            }
+	        }
+	        if (power > localMax) {
+	            localMax = power;
+	            climb = i;
+	        }
+	    }
+	    return (long) localMax << 32 | evaluated << 4 | climb;
+	}
 
-            if (newX < 0 || newX >= rows || newY < 0 ||newY >= columns) continue;
+	/** Index of climbStep for staying on the cell: it is a local maximum. */
+	static final int STAY_INDEX = 8;
+
+	// the directions in the order of dirX/dirY, then STAY
+	private static final HuntParallel.Direction[] DIRECTIONS = {
+	    HuntParallel.Direction.LEFT,
+	    HuntParallel.Direction.RIGHT,
+	    HuntParallel.Direction.UP,
+	    HuntParallel.Direction.DOWN,
+	    HuntParallel.Direction.UP_LEFT,
+	    HuntParallel.Direction.UP_RIGHT,
+	    HuntParallel.Direction.DOWN_LEFT,
+	    HuntParallel.Direction.DOWN_RIGHT,
+	    HuntParallel.Direction.STAY
+	};
+
+	static int climbMana(long step) {
+	    return (int) (step >> 32);
+	}
 
-            int power = getManaLevel(newX, newY);
-            if (power > localMax) {
-                localMax = power;
-                climbDirection = directions[i];
+	static int climbIndex(long step) {
+	    return (int) step & 0xf;
+	}
 
-                if (power == Integer.MAX_VALUE) break;
-            }
-	    }
-	    return climbDirection;
+	static int climbEvaluated(long step) {
+	    return ((int) step >>> 4) & 0xf;
+	}
+
+	static HuntParallel.Direction direction(long step) {
+	    return DIRECTIONS[climbIndex(step)];
 	}
 
 	/**
@@ -174,43 +389,89 @@ public class DungeonMapParallel {
      * @param filename The name of the output PNG file.
      */
 	public void visualisePowerMap(String filename, boolean path) {
-	    int width = manaMap.length;
-	    int height = manaMap[0].length;
-
-	    //output image
-	    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-	    // Find min and max for normalization (ignore unvisited sites)
-	    int min = Integer.MAX_VALUE;
-	    int max = Integer.MIN_VALUE;	    
-	    
-	    for (int x = 0; x < width; x++) {
-	        for (int y = 0; y < height; y++) {
-	            int value = manaMap[x][y];
-	            if (value==Integer.MIN_VALUE)  continue; // ignore unvisited sites
-	            if (value < min) min = value;
-	            if (value > max) max = value;
-	        }
+		visualisePowerMap(filename, path, ExecutionBackend.common());
+	}
+
+	/**
+	 * Same as visualisePowerMap(filename, path), encoding the image on the given backend.
+	 */
+	void visualisePowerMap(String filename, boolean path, ExecutionBackend backend) {
+		writePowerMaps(new String[] {filename}, new boolean[] {path}, backend);
+	}
+
+	/**
+	 * Writes the power map (searchFile) and the power map of the search paths only (pathFile)
+	 * in one pass over the grid.
+	 */
+	void visualisePowerMaps(String searchFile, String pathFile, ExecutionBackend backend) {
+		writePowerMaps(new String[] {searchFile, pathFile}, new boolean[] {false, true}, backend);
+	}
+
+	/**
+	 * Streams the grid into one PNG file per entry of files, straight from the grids
+	 * (see PngBandWriter), so no image is ever held in memory.
+	 * When paths[i] is true, cells that were evaluated but not visited are black in image i.
+	 */
+	private void writePowerMaps(String[] files, boolean[] paths, ExecutionBackend backend) {
+	    try {
+	        encodePowerMaps(files, paths, backend, backend.cutoffs().bandRows);
+	        for (String filename : files) System.out.println("map saved to " + filename);
+	    } catch (IOException e) {
+	        e.printStackTrace();
 	    }
+	}
+
+	/** writePowerMaps without the messages, compressing bandRows scanlines per task (see CutoffProfile). */
+	void encodePowerMaps(String[] files, boolean[] paths, ExecutionBackend backend, int bandRows) throws IOException {
+	    int width = rows;
+	    int height = columns;
+
+	    // min and max for normalization (evaluated sites only), kept up to date during the hunt
+	    GridStatistics.Snapshot stats = statistics.snapshot();
+	    int min = stats.min;
+	    int max = stats.max;
 	    // Prevent division by zero if everything has the same value
 	    double range = (max > min) ? (max - min) : 1.0;
+	    final int low = min;
+
+	    // Map height values to colors, image row 0 is the top (highest y)
+	    PngBandWriter writer = new PngBandWriter(width, height, PALETTE, bandRows,
+	            2 * backend.parallelism());
+	    writer.write(files, (imageRow, pixels, offset) -> {
+	        int y = height - 1 - imageRow;
+	        for (int x = 0; x < width; x++) {
+	            long index = manaMap.index(x, y);
+	            int value = manaMap.getAt(index);
+	            byte colour = (value == Integer.MIN_VALUE) ? 0 : paletteIndex(value, low, range);
+	            boolean visited = visit.get(index);
+	            for (int i = 0; i < pixels.length; i++) {
+	                pixels[i][offset + x] = (paths[i] && !visited) ? 0 : colour;
+	            }
+	        }
+	    }, backend.executor());
+	}
 
-	    // Map height values to colors
-		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
-		pool.invoke(new VisualisePowerTask(0, width, image, min, range, path));
-        try {
-	        File output = new File(filename);
-	        ImageIO.write(image, "png", output);
-	        System.out.println("map saved to " + filename);
-	    } catch (IOException | NullPointerException e) {
-	        e.printStackTrace();
+	// palette entry of a mana value: 1 to 255 along the gradient, entry 0 is black
+	private static byte paletteIndex(int value, int min, double range) {
+	    double normalized = Math.max(0, Math.min(1, (value - min) / range));
+	    return (byte) (1 + (int) (normalized * 254 + 0.5));
+	}
+
+	private static byte[] buildPalette() {
+	    byte[] palette = new byte[256 * 3];   // entry 0 stays black
+	    for (int k = 0; k < 255; k++) {
+	        int rgb = mapHeightToColor(k / 254.0);
+	        palette[3 * (k + 1)] = (byte) (rgb >> 16);
+	        palette[3 * (k + 1) + 1] = (byte) (rgb >> 8);
+	        palette[3 * (k + 1) + 2] = (byte) rgb;
 	    }
+	    return palette;
 	}
 
 	/**
-	 * Maps normalized height [0..1] to black → purple → red → white.
+	 * Maps normalized height [0..1] to black → purple → red → white, as 0xRRGGBB.
 	 */
-	private Color mapHeightToColor(double normalized) {
+	private static int mapHeightToColor(double normalized) {
 	    normalized = Math.max(0, Math.min(1, normalized)); // clamp to [0,1]
 
 	    int r, g, b;
@@ -237,20 +498,87 @@ public class DungeonMapParallel {
 	        b = (int) (255 * t);
 	    }
 
-	    return new Color(r, g, b);
+	    return (r << 16) | (g << 8) | b;
 	}
 
-	public int getGridPointsEvaluated() {
-		return dungeonGridPointsEvaluated;
+	double getXmin() { return xmin; }
+
+	double getXmax() { return xmax; }
+
+	double getYmin() { return ymin; }
+
+	double getYmax() { return ymax; }
+
+	public long getGridPointsEvaluated() {
+		return statistics.snapshot().evaluated;
+	}
+
+	/**
+	 * Counts grid points evaluated somewhere else: by the worker processes of a hunt (see
+	 * HuntProcesses) or on a coarsened map. Their values are not in getStatistics().
+	 */
+	void addGridPointsEvaluated(long points) {
+		statistics.addElsewhere(points);
+	}
+
+	/**
+	 * Number of cells evaluated, smallest and largest mana and a histogram of the values,
+	 * merged from the threads that evaluated them. Costs O(threads), not a pass over the grid;
+	 * call it once the hunt is over.
+	 */
+	GridStatistics.Snapshot getStatistics() {
+		return statistics.snapshot();
+	}
+
+	/**
+	 * Lets the climbs record where they lead in basins (see BasinMap). Set it before the hunt starts.
+	 */
+	void useBasins(BasinMap basins) {
+		this.basins = basins;
+	}
+
+	/** The basin map of the climbs, null if they keep none. */
+	BasinMap basins() {
+		return basins;
+	}
+
+	/**
+	 * Lets the claims note their hunter in owners (see PathOwners). Set it before the hunt starts.
+	 */
+	void useOwners(PathOwners owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Notes when a cell of at least mana is first evaluated, see GridStatistics.watch.
+	 * Set it before the hunt starts.
+	 */
+	void watch(int mana) {
+		statistics.watch(mana);
+	}
+
+	/**
+	 * Number of grid cells that currently have memory behind them, over the mana grid and the visit bits.
+	 * Small dungeons allocate everything up front, large ones only the pages hunters touched.
+	 */
+	public long getAllocatedCells() {
+		return manaMap.allocatedCells() + visit.allocatedCells();
 	}
 
 	public double getXcoord(int x) {
+		if (stride > 1) return xCoord[x];
 		return xmin + ( (xmax - xmin) / rows ) * x;
 	}
 	public double getYcoord(int y) {
+		if (stride > 1) return yCoord[y];
 		return ymin + ( (ymax - ymin) / columns ) * y;
 	}
 
+	/** 1 for a full map, the spacing of the cells in cells of the full map for a coarsened one. */
+	int getStride() {
+		return stride;
+	}
+
 	public int getRows() {
 		return rows;
 	}
@@ -260,64 +588,42 @@ public class DungeonMapParallel {
 	}
 
 	/**
-	 * The VisualisePowerTask class sets the RGB color for the output image concurrently by using the ForkJoinPool framework
-	 * Uses a Sequential-cutoff of 50
-	 * @author Tracey Letlape
-	 * 
+	 * The mana grid and visit bits of one dungeon after the other. A grid that is large enough
+	 * and its bits are cleared by starting a new generation (see StampedIntGrid and VisitBits)
+	 * instead of being refilled; a larger dungeon gets new ones.
 	 */
-	private class VisualisePowerTask extends RecursiveAction {
-        private static int THRESHOLD;
-        private final int startX, endX, min;
-        private final BufferedImage image;
-        private final double range;
-        private final boolean path;
-
-        public VisualisePowerTask(int startX, int endX, BufferedImage image, int min, double range, boolean path) {
-            this.startX = startX;
-            this.endX = endX;
-            this.image = image;
-            this.min = min;
-            this.range = range;
-            this.path = path;
-			THRESHOLD = (int)((rows * columns) / (Runtime.getRuntime().availableProcessors() * 6));
-        }
-
-        @Override
-        protected void compute() {
-            if (endX - startX < THRESHOLD) {
-                seqCompute();
-            } else {
-                int mid = (startX + endX) / 2;
-
-				// safeguard against infinite recursion
-				if (mid == startX || mid == endX) {
-					seqCompute();
-					return;
-				}
-				
-                VisualisePowerTask left = new VisualisePowerTask(startX, mid, image, min, range, path);
-                VisualisePowerTask right = new VisualisePowerTask(mid, endX, image, min, range, path);
-                left.fork();
-                right.compute();
-                left.join();
-            }
-        }
-
-		private void seqCompute() {
-			for (int x = startX; x < endX; x++) {
-				for (int y = 0; y < image.getHeight(); y++) {
-					Color color;
-					if (path && !visited(x, y)) {
-						color = Color.BLACK;
-					} else if (manaMap[x][y] == Integer.MIN_VALUE) {
-						color = Color.BLACK;
-					} else {
-						double normalized = (manaMap[x][y] - min) / range;
-						color = mapHeightToColor(normalized);
-					}
-					image.setRGB(x, image.getHeight()  - 1 - y, color.getRGB());
-				}
+	static final class Grids {
+		static final Grids NONE = new Grids();   // no grids at all, see tablesOnly
+
+		private final boolean paged;
+		private IntGrid manaMap;
+		private VisitBits visit;
+
+		Grids() {
+			this(false);
+		}
+
+		/** @param paged always use paged grids, so memory follows the cells that are used (see PagedIntGrid) */
+		Grids(boolean paged) {
+			this.paged = paged;
+		}
+
+		private void take(int rows, int columns) {
+			if (manaMap != null && manaMap.fits(rows, columns)) {
+				manaMap.clear();
+				visit.clear();
+				return;
+			}
+			if (manaMap != null) {
+				rows = Math.max(rows, manaMap.getRows());
+				columns = Math.max(columns, manaMap.getColumns());
 			}
+			if (paged) {
+				manaMap = new PagedIntGrid(rows, columns, Integer.MIN_VALUE);
+			} else {
+				manaMap = IntGrid.createReusable(rows, columns, Integer.MIN_VALUE);
+			}
+			visit = new VisitBits(manaMap, true);
 		}
-    }
+	}
 }
@@ -0,0 +1,285 @@
+/**
+ * ExecutionBackend.java
+ * @version Parallel solution
+ *
+ * The threads every parallel stage of a run executes on: building the lookup tables,
+ * sorting the start cells, the hunt and the image output.
+ * Chosen on the command line with --backend=KIND[:N]:
+ *   forkjoin[:N]   a ForkJoinPool with parallelism N (default: available processors)
+ *   threads[:N]    a fixed pool of N platform threads
+ *   virtual[:N]    one virtual thread per task (Java 21+), at most N of them running at a time
+ *                  (default: available processors), so N holds the run to a CPU quota
+ *   sequential     everything on the calling thread, the baseline for speedups
+ * A backend owns its threads and must be closed when the run is over. It also carries the
+ * sequential cutoffs the stages split their work by (see CutoffProfile).
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+
+public class ExecutionBackend implements AutoCloseable {
+
+	enum Kind { FORKJOIN, THREADS, VIRTUAL, SEQUENTIAL }
+
+	private static final ExecutionBackend COMMON =
+			new ExecutionBackend(Kind.FORKJOIN, ForkJoinPool.commonPool().getParallelism(), ForkJoinPool.commonPool(), false);
+
+	private final Kind kind;
+	private final int parallelism;
+	private final ExecutorService executor;
+	private final boolean owned;       // the common pool is shared and never shut down
+	private volatile CutoffProfile.Cutoffs cutoffs = CutoffProfile.Cutoffs.DEFAULT;
+
+	private ExecutionBackend(Kind kind, int parallelism, ExecutorService executor, boolean owned) {
+		this.kind = kind;
+		this.parallelism = parallelism;
+		this.executor = executor;
+		this.owned = owned;
+	}
+
+	/**
+	 * The backend described by spec, e.g. "forkjoin", "forkjoin:8", "threads:4", "virtual:8", "sequential".
+	 * @throws IllegalArgumentException if spec does not describe a backend this JVM can run
+	 */
+	static ExecutionBackend parse(String spec) {
+		String[] parts = spec.split(":", 2);
+		Kind kind;
+		try {
+			kind = Kind.valueOf(parts[0].toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("--backend must be forkjoin, threads, virtual or sequential.");
+		}
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		if (parts.length == 2) {
+			try {
+				parallelism = Integer.parseInt(parts[1]);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("The thread count of --backend must be a whole number.");
+			}
+			if (parallelism <= 0) throw new IllegalArgumentException("The thread count of --backend must be greater than 0.");
+		}
+		return create(kind, parallelism);
+	}
+
+	static ExecutionBackend create(Kind kind, int parallelism) {
+		switch (kind) {
+			case FORKJOIN:
+				return new ExecutionBackend(kind, parallelism, new ForkJoinPool(parallelism), true);
+			case THREADS:
+				return new ExecutionBackend(kind, parallelism, Executors.newFixedThreadPool(parallelism), true);
+			case VIRTUAL:
+				return new ExecutionBackend(kind, parallelism, new Bounded(virtualThreads(), parallelism), true);
+			default:
+				return new ExecutionBackend(Kind.SEQUENTIAL, 1, new CallerRuns(), true);
+		}
+	}
+
+	/** The JVM's common ForkJoinPool, for callers that do not pick a backend. */
+	static ExecutionBackend common() {
+		return COMMON;
+	}
+
+	private static ExecutorService virtualThreads() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Virtual threads need Java 21 or newer.");
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	Kind kind() {
+		return kind;
+	}
+
+	/** Number of tasks that run at the same time, used to size cutoffs and worker counts. */
+	int parallelism() {
+		return parallelism;
+	}
+
+	/** The sequential cutoffs of the stages that run on this backend. */
+	CutoffProfile.Cutoffs cutoffs() {
+		return cutoffs;
+	}
+
+	/** Sets the cutoffs for the stages that start from now on. */
+	void useCutoffs(CutoffProfile.Cutoffs cutoffs) {
+		this.cutoffs = cutoffs;
+	}
+
+	ExecutorService executor() {
+		return executor;
+	}
+
+	/** The pool for ForkJoinTasks, or null if this backend is not a ForkJoinPool. */
+	ForkJoinPool forkJoinPool() {
+		return kind == Kind.FORKJOIN ? (ForkJoinPool) executor : null;
+	}
+
+	/**
+	 * Sets every element of array to generator(i), in parallel blocks.
+	 */
+	void setAll(double[] array, IntToDoubleFunction generator) {
+		if (kind == Kind.SEQUENTIAL || array.length < 4096) {
+			Arrays.setAll(array, generator);
+		} else if (kind == Kind.FORKJOIN) {
+			// parallel array operations run on the pool they are called from
+			forkJoinPool().submit(() -> Arrays.parallelSetAll(array, generator)).join();
+		} else {
+			int block = (array.length + parallelism - 1) / parallelism;
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int from = 0; from < array.length; from += block) {
+				final int start = from, end = Math.min(array.length, from + block);
+				tasks.add(() -> {
+					for (int i = start; i < end; i++) array[i] = generator.applyAsDouble(i);
+					return null;
+				});
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/** Sorts keys, in parallel on a ForkJoin backend. */
+	void sort(long[] keys) {
+		if (kind == Kind.FORKJOIN) forkJoinPool().submit(() -> Arrays.parallelSort(keys)).join();
+		else Arrays.sort(keys);
+	}
+
+	/**
+	 * Runs all tasks and waits for them.
+	 * @throws IllegalStateException if a task fails or the caller is interrupted
+	 */
+	<T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+		List<T> results = new ArrayList<>(tasks.size());
+		try {
+			for (Future<T> future : executor.invokeAll(tasks)) results.add(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for parallel tasks.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A parallel task failed.", e.getCause());
+		}
+		return results;
+	}
+
+	/** Shuts the threads down and waits for running tasks to finish. */
+	@Override
+	public void close() {
+		if (!owned) return;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return kind == Kind.SEQUENTIAL ? "sequential" : kind.name().toLowerCase() + ":" + parallelism;
+	}
+
+	/**
+	 * Runs tasks on executor, but at most permits of them at a time: a task waits for a permit
+	 * on its own (virtual) thread before it starts. The virtual thread scheduler keeps one
+	 * carrier per processor whatever N is, so this is what limits the CPUs a run uses.
+	 */
+	private static final class Bounded extends AbstractExecutorService {
+		private final ExecutorService executor;
+		private final Semaphore running;
+
+		Bounded(ExecutorService executor, int permits) {
+			this.executor = executor;
+			this.running = new Semaphore(permits);
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			executor.execute(() -> {
+				running.acquireUninterruptibly();
+				try {
+					command.run();
+				} finally {
+					running.release();
+				}
+			});
+		}
+
+		@Override
+		public void shutdown() {
+			executor.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return executor.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return executor.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return executor.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return executor.awaitTermination(timeout, unit);
+		}
+	}
+
+	// runs every task on the thread that submits it
+	private static final class CallerRuns extends AbstractExecutorService {
+		private volatile boolean shutdown;
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+
+		@Override
+		public void shutdown() {
+			shutdown = true;
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			shutdown = true;
+			return new ArrayList<>();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+}
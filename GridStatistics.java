@@ -0,0 +1,139 @@
+/**
+ * GridStatistics.java
+ * @version Parallel solution
+ *
+ * Statistics of the mana values in a map, kept up to date as cells are evaluated instead
+ * of being found by scanning the grid: the number of cells evaluated, the smallest and
+ * largest value and a coarse histogram of the values. Every thread that evaluates cells
+ * has its own accumulator, so recording needs no synchronisation; snapshot() merges them
+ * in O(threads). Take the snapshot after the threads that evaluated have been joined.
+ *
+ * A map can also watch for a value (watch): the first time a cell of at least that value
+ * is recorded, the time and the number of cells evaluated so far are noted, which is how
+ * HuntBatch tells how long a strategy took to reach the true maximum. The count is read
+ * from the other threads while they run, so it is approximate.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GridStatistics {
+
+	// buckets of half a unit of mana from -16 up; values outside go to the first or last bucket
+	static final int BUCKET_WIDTH = DungeonMapParallel.PRECISION / 2;
+	static final int BUCKET_LOW = -16 * DungeonMapParallel.PRECISION;
+	static final int BUCKETS = 80;
+
+	/** The counts of one thread. */
+	static final class Accumulator {
+		private final GridStatistics owner;
+		private long count;
+		private int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		private final long[] histogram = new long[BUCKETS];
+
+		private Accumulator(GridStatistics owner) {
+			this.owner = owner;
+		}
+
+		/** One cell newly evaluated to value. */
+		void record(int value) {
+			count++;
+			if (value < min) min = value;
+			if (value > max) max = value;
+			histogram[bucket(value)]++;
+			if (value >= owner.target) owner.reach();
+		}
+	}
+
+	private final ConcurrentLinkedQueue<Accumulator> all = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<Accumulator> local = ThreadLocal.withInitial(this::register);
+	private final LongAdder elsewhere = new LongAdder();    // cells evaluated without their value here
+	private volatile int target = Integer.MAX_VALUE;        // value watched for
+	private long reachedNanos, reachedEvaluated;            // when it was first recorded, guarded by this
+
+	private Accumulator register() {
+		Accumulator accumulator = new Accumulator(this);
+		all.add(accumulator);
+		return accumulator;
+	}
+
+	/** The accumulator of the calling thread. */
+	Accumulator local() {
+		return local.get();
+	}
+
+	/** Counts cells evaluated somewhere else, whose values this map never sees. */
+	void addElsewhere(long cells) {
+		elsewhere.add(cells);
+	}
+
+	/** Notes the first cell of at least target recorded from now on; see Snapshot.reachedNanos. */
+	void watch(int target) {
+		this.target = target;
+	}
+
+	private synchronized void reach() {
+		if (reachedNanos != 0) return;
+		reachedNanos = System.nanoTime();
+		long evaluated = elsewhere.sum();
+		for (Accumulator accumulator : all) evaluated += accumulator.count;
+		reachedEvaluated = evaluated;
+	}
+
+	static int bucket(int value) {
+		long b = ((long) value - BUCKET_LOW) / BUCKET_WIDTH;
+		return (int) Math.max(0, Math.min(BUCKETS - 1, b));
+	}
+
+	/** Smallest value that falls into bucket b (the first bucket also holds everything below). */
+	static int bucketLow(int b) {
+		return BUCKET_LOW + b * BUCKET_WIDTH;
+	}
+
+	/** The statistics of all threads together. */
+	Snapshot snapshot() {
+		Snapshot snapshot = new Snapshot();
+		for (Accumulator accumulator : all) {
+			snapshot.recorded += accumulator.count;
+			snapshot.min = Math.min(snapshot.min, accumulator.min);
+			snapshot.max = Math.max(snapshot.max, accumulator.max);
+			for (int b = 0; b < BUCKETS; b++) snapshot.histogram[b] += accumulator.histogram[b];
+		}
+		snapshot.evaluated = snapshot.recorded + elsewhere.sum();
+		synchronized (this) {
+			snapshot.reachedNanos = reachedNanos;
+			snapshot.reachedEvaluated = reachedEvaluated;
+		}
+		return snapshot;
+	}
+
+	/** Merged statistics; min and max are Integer.MAX_VALUE and MIN_VALUE while nothing was recorded here. */
+	static final class Snapshot {
+		long evaluated;            // cells evaluated, including the ones counted elsewhere
+		long recorded;             // cells whose value is in min, max and the histogram
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		final long[] histogram = new long[BUCKETS];
+		long reachedNanos;         // System.nanoTime() when the watched value was first recorded, 0 if never
+		long reachedEvaluated;     // about the cells evaluated by then
+
+		/**
+		 * The value below which about a share p (0 to 1) of the recorded cells fall, to the
+		 * resolution of the histogram and clamped to [min, max].
+		 */
+		int percentile(double p) {
+			if (recorded == 0) return 0;
+			long rank = (long) Math.ceil(p * recorded);
+			long seen = 0;
+			for (int b = 0; b < BUCKETS; b++) {
+				seen += histogram[b];
+				if (seen >= rank && histogram[b] > 0) {
+					return Math.max(min, Math.min(max, bucketLow(b + 1)));
+				}
+			}
+			return max;
+		}
+	}
+}
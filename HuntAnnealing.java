@@ -0,0 +1,161 @@
+/**
+ * HuntAnnealing.java
+ * @version Parallel solution
+ *
+ * Simulated annealing (--strategy=anneal). Independent chains start on random cells and
+ * make --sweeps moves each, run by the workers like climbing hunters. A move proposes a cell
+ * within a radius of the current one and takes it if it is higher, or with probability
+ * exp(difference / T) if it is lower (Metropolis), so a chain can leave a local maximum
+ * while T is high. T cools geometrically from HOT to COLD over the moves of a chain, and
+ * the radius shrinks with it from a sixteenth of the dungeon down to a few cells. Every chain
+ * then climbs from the best cell it saw to the top of that peak (polish), so its answer is a
+ * local maximum like the one of a climb.
+ *
+ * Proposals far away mostly land on new cells, so the cells evaluated are about
+ * chains x sweeps plus the polish; the chains share the mana map (and the mana cache) of
+ * the dungeon, but not the visit bits: a chain may cross a cell another one has seen.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class HuntAnnealing implements SearchStrategy {
+
+	static final int DEFAULT_SWEEPS = 512;
+	static final int SEARCHES_PER_CHAIN = 256;    // chains when --chains is not given: one per this many searches
+
+	// temperatures in the fixed-point units of the mana map
+	static final double HOT = 2.0 * DungeonMapParallel.PRECISION;
+	static final double COLD = 0.05 * DungeonMapParallel.PRECISION;
+	static final int RADIUS_SHARE = 16;            // radius at HOT: this share of the rows
+
+	private final int chains, sweeps;
+
+	/** @param chains number of chains, 0 for one per SEARCHES_PER_CHAIN searches */
+	HuntAnnealing(int chains, int sweeps) {
+		if (chains < 0) throw new IllegalArgumentException("--chains must not be negative (0 picks the number from the searches).");
+		if (sweeps <= 0) throw new IllegalArgumentException("--sweeps must be greater than 0.");
+		this.chains = chains;
+		this.sweeps = sweeps;
+	}
+
+	@Override
+	public String name() {
+		return "anneal";
+	}
+
+	@Override
+	public HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon, HuntDriver driver) {
+		int count = chains > 0 ? chains : Math.max(driver.workers, numSearches / SEARCHES_PER_CHAIN);
+		double radius = Math.max(1.0, dungeon.getRows() / (double) RADIUS_SHARE) / HOT;
+		Chain[] searches = new Chain[count];
+		for (int i = 0; i < count; i++) {
+			searches[i] = new Chain(i + 1, rand.nextInt(dungeon.getRows()), rand.nextInt(dungeon.getColumns()),
+					dungeon, rand.nextLong(), radius);
+			searches[i].schedule(sweeps, HOT, COLD, true);
+		}
+		return searches;
+	}
+
+	@Override
+	public String report(HuntParallel[] searches) {
+		return String.format("\t Annealing chains: %d, %d moves each\n", searches.length, sweeps);
+	}
+
+	/**
+	 * A Metropolis chain on the dungeon. Each findManaPeak makes the moves of its schedule,
+	 * cooling from one temperature to another (the same one for a replica of HuntTempering),
+	 * and climbs from the best cell seen if it is told to polish. The position, power and
+	 * steps it reports are those of the best cell so far.
+	 */
+	static class Chain extends HuntParallel {
+		private final SplittableRandom random;      // own generator, so the chain is the same on any worker
+		private final double radius;                // proposal radius in cells per unit of temperature
+		int x, y, mana = Integer.MIN_VALUE;         // current state, swapped between replicas by HuntTempering
+		double temperature;                         // where the last walk ended
+		private int bestX, bestY, best = Integer.MIN_VALUE;
+		private int moves;
+		private double cooling;                     // factor per move
+		private boolean polish;
+
+		Chain(int id, int x, int y, DungeonMapParallel dungeon, long seed, double radius) {
+			super(id, x, y, dungeon);
+			this.x = x;
+			this.y = y;
+			this.random = new SplittableRandom(seed);
+			this.radius = radius;
+		}
+
+		/** The next findManaPeak makes moves moves, cooling from hot to cold, then polishes if told to. */
+		void schedule(int moves, double hot, double cold, boolean polish) {
+			this.moves = moves;
+			this.temperature = hot;
+			this.cooling = moves > 1 ? Math.pow(cold / hot, 1.0 / (moves - 1)) : 1.0;
+			this.polish = polish;
+		}
+
+		@Override
+		public int findManaPeak() {
+			if (mana == Integer.MIN_VALUE) mana = manaAt(x, y);
+			if (mana > best) keepBest();
+			int rows = dungeon.getRows(), columns = dungeon.getColumns();
+			double t = temperature;
+			for (int m = 0; m < moves; m++, t *= cooling) {
+				int r = Math.max(1, (int) (t * radius + 0.5));
+				int nx = Math.min(Math.max(x + random.nextInt(-r, r + 1), 0), rows - 1);
+				int ny = Math.min(Math.max(y + random.nextInt(-r, r + 1), 0), columns - 1);
+				steps++;
+				if (nx == x && ny == y) continue;
+				int proposed = manaAt(nx, ny);
+				if (proposed >= mana || random.nextDouble() < Math.exp((proposed - mana) / t)) {
+					x = nx;
+					y = ny;
+					mana = proposed;
+					dungeon.setVisited(x, y, getID());   // for the path image only, chains do not claim
+					if (mana > best) keepBest();
+				}
+			}
+			temperature = t / cooling;
+			if (polish) climbFromBest();
+			posRow = bestX;
+			posCol = bestY;
+			power = best;
+			return best;
+		}
+
+		// mana of (x, y), counting it if this chain evaluated it
+		private int manaAt(int x, int y) {
+			if (dungeon.storeMana(x, y)) evaluated++;
+			return dungeon.getManaLevel(x, y);
+		}
+
+		private void keepBest() {
+			best = mana;
+			bestX = x;
+			bestY = y;
+		}
+
+		// steepest ascent from the best cell to the top of its peak, through cells others may have seen
+		private void climbFromBest() {
+			int cx = bestX, cy = bestY;
+			while (true) {
+				long step = dungeon.climbStep(cx, cy);
+				evaluated += DungeonMapParallel.climbEvaluated(step);
+				dungeon.setVisited(cx, cy, getID());
+				steps++;
+				int climb = DungeonMapParallel.climbIndex(step);
+				if (climb == DungeonMapParallel.STAY_INDEX) {
+					best = DungeonMapParallel.climbMana(step);
+					break;
+				}
+				cx += DungeonMapParallel.dirX[climb];
+				cy += DungeonMapParallel.dirY[climb];
+			}
+			bestX = cx;
+			bestY = cy;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * HuntBatch.java
+ * @version Parallel solution
+ *
+ * Runs many dungeons back to back in one JVM, so a parameter sweep pays for JIT warm-up
+ * and thread start-up once. Every line of the input is one job:
+ *   <gridSize> <numSearchesMultiplier> <randomSeed>
+ * with the same meaning as the command line arguments; blank lines and lines starting
+ * with # are skipped. The options of the command line (backend, scheduler, workers,
+ * launch, mana-cache, strategy) apply to every job; jobs without a seed do not use the mana cache.
+ * Every job runs with the cutoffs of the profile for its dungeon size (see CutoffProfile).
+ *
+ * All jobs share one pair of grids (see DungeonMapParallel.Grids), so a job only clears
+ * them in O(1) instead of allocating and filling new ones. No images are written.
+ * One CSV line is printed per job as soon as it is done; a bad line is reported on
+ * the error stream and the batch goes on with the next one. timeMs covers the launch and
+ * the hunt, so it includes the coarse pass of the coarse strategy.
+ *
+ * With several strategies (--compare) every job is hunted once per strategy, on the same
+ * dungeon, with one line each that says whether it found the same Dungeon Master as the
+ * first strategy; a summary per strategy follows the last job.
+ *
+ * With --truth the true maximum of every job is found first, by a scan of every cell that
+ * stores none of them (see ManaScan), and each line adds it and how long the hunt took to reach it: the time
+ * and (about) the cells evaluated when a cell of that mana was first evaluated, empty if the
+ * hunt never saw it. The summary then says how often each strategy found it.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+
+public class HuntBatch {
+
+	static final String HEADER = "gateSize,multiplier,seed,searches,distinctStarts,timeMs,evaluated,mana,x,y";
+	static final String COMPARE_HEADER = "gateSize,multiplier,seed,strategy,searches,distinctStarts,timeMs,evaluated,mana,x,y,sameMaster";
+	static final String TRUTH_COLUMNS = ",trueMax,reachMs,reachEvaluated";
+
+	private final HuntDriver driver;
+	private final String manaCacheDir;          // null without --mana-cache
+	private final SearchStrategy[] strategies;  // one, or the strategies to compare with the first
+	private final boolean truth;
+	private final CutoffProfile cutoffs;
+	// per strategy: jobs, same master, higher peak, cells, nanoseconds, true maximum found,
+	// true maximum reached, cells and nanoseconds until it was reached
+	private final long[][] totals;
+	private final DungeonMapParallel.Grids grids = new DungeonMapParallel.Grids();
+
+	HuntBatch(HuntDriver driver, String manaCacheDir, SearchStrategy[] strategies, boolean truth, CutoffProfile cutoffs) {
+		this.driver = driver;
+		this.manaCacheDir = manaCacheDir;
+		this.strategies = strategies;
+		this.truth = truth;
+		this.cutoffs = cutoffs;
+		this.totals = new long[strategies.length][9];
+	}
+
+	/**
+	 * Runs every job in file ("-" for standard input), printing results to out and bad lines to err.
+	 * @return 0 if every job ran, 1 otherwise
+	 */
+	int run(String file, PrintStream out, PrintStream err) {
+		try (BufferedReader in = new BufferedReader(file.equals("-")
+				? new InputStreamReader(System.in) : new FileReader(file))) {
+			return run(in, out, err);
+		} catch (IOException e) {
+			err.println("Error: " + e.getMessage());
+			return 1;
+		}
+	}
+
+	/** Same as run(file, out, err), for jobs read from in. */
+	int run(BufferedReader in, PrintStream out, PrintStream err) throws IOException {
+		int status = 0;
+		out.println((compare() ? COMPARE_HEADER : HEADER) + (truth ? TRUTH_COLUMNS : ""));
+		String line;
+		int lineNumber = 0;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			try {
+				out.println(runJob(line));
+			} catch (NumberFormatException e) {
+				err.println("Error: line " + lineNumber + ": All arguments must be numeric.");
+				status = 1;
+			} catch (IllegalArgumentException | IOException e) {
+				err.println("Error: line " + lineNumber + ": " + e.getMessage());
+				status = 1;
+			}
+		}
+		if (compare() || truth) printSummary(out);
+		return status;
+	}
+
+	private boolean compare() {
+		return strategies.length > 1;
+	}
+
+	/** Runs one job and returns its result line, or one line per strategy when comparing. */
+	String runJob(String line) throws IOException {
+		String[] fields = line.split("\\s+");
+		for (String field : fields) {
+			if (field.startsWith("--")) throw new IllegalArgumentException("Options go on the command line, not in a job.");
+		}
+		RunOptions job = RunOptions.parse(fields);
+		int gateSize = job.gateSize;
+		int numSearches = (int) (job.multiplier * (gateSize * 2.0) * (gateSize * 2.0) * DungeonMapParallel.RESOLUTION);
+		if (numSearches <= 0) throw new IllegalArgumentException("The multiplier gives no searches for this grid size.");
+		if ((compare() || truth) && job.randomSeed == 0) {
+			throw new IllegalArgumentException("Comparing strategies and --truth need a seed other than 0, so every map is the same dungeon.");
+		}
+		int trueMax = truth ? trueMaximum(gateSize, job.randomSeed) : Integer.MIN_VALUE;
+
+		if (!compare()) {
+			Outcome outcome = hunt(strategies[0], job, numSearches, trueMax);
+			count(0, outcome, outcome, trueMax);
+			return String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%.3f,%d,%d,%.1f,%.1f",
+					gateSize, fields[1], job.randomSeed, numSearches, outcome.searches, outcome.nanos / 1e6,
+					outcome.evaluated, outcome.mana, outcome.x, outcome.y) + truthColumns(outcome, trueMax);
+		}
+		StringBuilder lines = new StringBuilder();
+		Outcome reference = null;
+		for (int s = 0; s < strategies.length; s++) {
+			Outcome outcome = hunt(strategies[s], job, numSearches, trueMax);
+			if (reference == null) reference = outcome;
+			boolean same = count(s, outcome, reference, trueMax);
+			if (s > 0) lines.append(System.lineSeparator());
+			lines.append(String.format(Locale.ROOT, "%d,%s,%d,%s,%d,%d,%.3f,%d,%d,%.1f,%.1f,%b",
+					gateSize, fields[1], job.randomSeed, strategies[s].name(), numSearches, outcome.searches, outcome.nanos / 1e6,
+					outcome.evaluated, outcome.mana, outcome.x, outcome.y, same)).append(truthColumns(outcome, trueMax));
+		}
+		return lines.toString();
+	}
+
+	// adds outcome of strategy s to the totals; returns whether it found the same master as reference
+	private boolean count(int s, Outcome outcome, Outcome reference, int trueMax) {
+		boolean same = outcome.mana == reference.mana && outcome.x == reference.x && outcome.y == reference.y;
+		totals[s][0]++;
+		if (same) totals[s][1]++;
+		if (outcome.mana > reference.mana) totals[s][2]++;
+		totals[s][3] += outcome.evaluated;
+		totals[s][4] += outcome.nanos;
+		if (outcome.mana == trueMax) totals[s][5]++;
+		if (outcome.reachNanos >= 0) {
+			totals[s][6]++;
+			totals[s][7] += outcome.reachEvaluated;
+			totals[s][8] += outcome.reachNanos;
+		}
+		return same;
+	}
+
+	private String truthColumns(Outcome outcome, int trueMax) {
+		if (!truth) return "";
+		if (outcome.reachNanos < 0) return "," + trueMax + ",,";
+		return String.format(Locale.ROOT, ",%d,%.3f,%d", trueMax, outcome.reachNanos / 1e6, outcome.reachEvaluated);
+	}
+
+	/** Hunts the dungeon of job once with strategy, watching for trueMax if there is one. */
+	private Outcome hunt(SearchStrategy strategy, RunOptions job, int numSearches, int trueMax) throws IOException {
+		int gateSize = job.gateSize;
+		Random rand = job.randomSeed > 0 ? new Random(job.randomSeed) : new Random();
+		DungeonMapParallel dungeon = new DungeonMapParallel(-gateSize, gateSize, -gateSize, gateSize,
+				job.randomSeed, driver.backend, grids);
+		driver.backend.useCutoffs(cutoffs.get(driver.backend, dungeon.getRows()));
+		ManaCache manaCache = manaCacheDir != null && job.randomSeed > 0
+				? ManaCache.open(new File(manaCacheDir), job.randomSeed, dungeon) : null;
+		dungeon.useManaCache(manaCache);
+		if (truth) dungeon.watch(trueMax);
+
+		long start = System.nanoTime();
+		HuntParallel[] searches;
+		DungeonHunterParallel.SearchResult result;
+		long nanos;
+		try {
+			searches = strategy.launch(rand, numSearches, dungeon, driver);
+			result = strategy.hunt(searches, driver);
+			nanos = System.nanoTime() - start;
+		} finally {
+			if (manaCache != null) manaCache.close();   // what the job computed is kept even if it failed
+		}
+
+		HuntParallel finder = searches[result.finderIndex];
+		GridStatistics.Snapshot statistics = dungeon.getStatistics();
+		boolean reached = statistics.reachedNanos != 0;
+		return new Outcome(strategy.hunted(searches), nanos, statistics.evaluated, result.maxMana,
+				dungeon.getXcoord(finder.getPosRow()), dungeon.getYcoord(finder.getPosCol()),
+				reached ? statistics.reachedNanos - start : -1, reached ? statistics.reachedEvaluated : -1);
+	}
+
+	/**
+	 * The highest mana of the dungeon of gateSize and seed, from a scan of every cell (see
+	 * ManaScan). The map only has the lookup tables, so the shared grids are not touched.
+	 */
+	private int trueMaximum(int gateSize, int seed) {
+		DungeonMapParallel full = DungeonMapParallel.tablesOnly(-gateSize, gateSize, -gateSize, gateSize, seed, driver.backend);
+		return ManaScan.scan(full, 1, driver.backend).max();
+	}
+
+	/**
+	 * One line per strategy after the first: how it did against the first strategy over all jobs;
+	 * with --truth one line per strategy on how often it found the true maximum.
+	 */
+	private void printSummary(PrintStream out) {
+		for (int s = 1; s < strategies.length; s++) {
+			out.printf(Locale.ROOT, "# %s: same Dungeon Master as %s in %d of %d jobs, a higher peak in %d, %.1f%% of its cells, %.1f%% of its time%n",
+					strategies[s].name(), strategies[0].name(), totals[s][1], totals[s][0], totals[s][2],
+					100.0 * totals[s][3] / Math.max(1, totals[0][3]), 100.0 * totals[s][4] / Math.max(1, totals[0][4]));
+		}
+		if (!truth) return;
+		for (int s = 0; s < strategies.length; s++) {
+			out.printf(Locale.ROOT, "# %s: true maximum found in %d of %d jobs, reached in %d, on average after %.0f cells and %.1f ms%n",
+					strategies[s].name(), totals[s][5], totals[s][0], totals[s][6],
+					totals[s][7] / (double) Math.max(1, totals[s][6]), totals[s][8] / 1e6 / Math.max(1, totals[s][6]));
+		}
+	}
+
+	private static final class Outcome {
+		final int searches;
+		final long nanos, evaluated;
+		final int mana;
+		final double x, y;
+		final long reachNanos, reachEvaluated;   // -1 when the true maximum was not reached or not known
+
+		Outcome(int searches, long nanos, long evaluated, int mana, double x, double y, long reachNanos, long reachEvaluated) {
+			this.searches = searches;
+			this.nanos = nanos;
+			this.evaluated = evaluated;
+			this.mana = mana;
+			this.x = x;
+			this.y = y;
+			this.reachNanos = reachNanos;
+			this.reachEvaluated = reachEvaluated;
+		}
+	}
+}
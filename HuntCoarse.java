@@ -0,0 +1,103 @@
+/**
+ * HuntCoarse.java
+ * @version Parallel solution
+ *
+ * Coarse-to-fine hunt (--strategy=coarse). A coarse pass hunts on a map of the same dungeon
+ * that only has every stride-th row and column (DungeonMapParallel.coarsened), with
+ * stride times fewer hunters, so the climbs cover the same area in far fewer cells. The
+ * candidates best peaks it reaches are then refined on the full map: hunters start on every
+ * other cell around each of them and climb with the usual HuntParallel climb.
+ *
+ * The coarse pass only sees the mana of its own cells, so it can miss a peak that is narrower
+ * than the stride; a larger stride or more candidates trade cells for safety. Compare the
+ * strategies on the same seeds with --compare (see HuntBatch).
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class HuntCoarse implements SearchStrategy {
+
+	static final int DEFAULT_STRIDE = 8;
+	static final int DEFAULT_CANDIDATES = 16;
+
+	final int stride, candidates;
+
+	// the last coarse pass, for the report
+	private long sampled;
+	private int peaks;
+
+	HuntCoarse(int stride, int candidates) {
+		if (stride < 2) throw new IllegalArgumentException("--stride must be at least 2.");
+		if (candidates <= 0) throw new IllegalArgumentException("--candidates must be greater than 0.");
+		this.stride = stride;
+		this.candidates = candidates;
+	}
+
+	@Override
+	public String name() {
+		return "coarse";
+	}
+
+	/**
+	 * Runs the coarse pass and returns the searches of the fine one, on dungeon. The cells
+	 * the coarse pass evaluated are added to the count of dungeon.
+	 * The coarse start cells are drawn from rand in the launch order of driver.
+	 */
+	@Override
+	public HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon, HuntDriver driver) {
+		DungeonMapParallel coarse = dungeon.coarsened(stride, driver.backend);
+		// stride times denser than the full hunt: the climbs of the coarse map are short, so it needs the starts
+		int coarseSearches = Math.max(candidates, numSearches / stride);
+		HuntParallel[] searches = driver.launch(rand, coarseSearches, coarse);
+		// worker loads are only recorded for the fine pass
+		DungeonHunterParallel.runHunt(searches, driver.scheduler, driver.workers, null, driver.backend);
+		sampled = coarse.getGridPointsEvaluated();
+		dungeon.addGridPointsEvaluated(sampled);
+
+		// every peak the coarse hunters reached is held by exactly one search that did not stop
+		HuntParallel[] found = Arrays.stream(searches).filter(search -> !search.isStopped())
+				.sorted(Comparator.comparingInt(HuntParallel::getPower).reversed()
+						.thenComparingInt(HuntParallel::getPosRow).thenComparingInt(HuntParallel::getPosCol))
+				.toArray(HuntParallel[]::new);
+		peaks = Math.min(candidates, found.length);
+
+		// every other cell of the coarse cells around each candidate, so ripples smaller than
+		// the stride do not stop the fine climb short of the peak
+		Set<Long> starts = new LinkedHashSet<>();
+		for (int p = 0; p < peaks; p++) {
+			int row = found[p].getPosRow() * stride, column = found[p].getPosCol() * stride;
+			for (int dx = -stride; dx <= stride; dx += 2) {
+				for (int dy = -stride; dy <= stride; dy += 2) {
+					int x = Math.min(Math.max(row + dx, 0), dungeon.getRows() - 1);
+					int y = Math.min(Math.max(column + dy, 0), dungeon.getColumns() - 1);
+					starts.add((long) x << 32 | y);
+				}
+			}
+		}
+		HuntParallel[] fine = new HuntParallel[starts.size()];
+		int i = 0;
+		for (long start : starts) {
+			fine[i] = new HuntParallel(i + 1, (int) (start >>> 32), (int) start, dungeon);
+			i++;
+		}
+		return fine;
+	}
+
+	@Override
+	public boolean searchesInLaunch() {
+		return true;
+	}
+
+	@Override
+	public String report(HuntParallel[] searches) {
+		return String.format("\t Coarse pass: stride %d, %d cells sampled, %d candidate peaks\n\t Fine searches: %d\n",
+				stride, sampled, peaks, searches.length);
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * HuntDriver.java
+ * @version Parallel solution
+ *
+ * How the searches of a strategy are started and run: the launch order of the start cells
+ * (--launch; stream is handled by the climb itself, see HuntStream), the scheduler and number of workers of the hunt (--scheduler, --workers),
+ * the backend they run on and where worker loads are recorded. A strategy (SearchStrategy)
+ * decides what the searches do; it hands them to run(), as often as it needs, and HuntTask
+ * or HuntScheduler run them in parallel.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public class HuntDriver {
+
+	final ExecutionBackend backend;
+	final String scheduler, launch;
+	final int workers;
+	final WorkerLoads loads;        // null when worker load is not recorded
+
+	HuntDriver(ExecutionBackend backend, String scheduler, String launch, int workers, WorkerLoads loads) {
+		this.backend = backend;
+		this.scheduler = scheduler;
+		this.launch = launch;
+		this.workers = workers;
+		this.loads = loads;
+	}
+
+	/** Climbing searches from numSearches start cells drawn from rand, in the order of --launch. */
+	HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon) {
+		if (launch.equals("spatial")) return HuntLaunch.spatial(rand, numSearches, dungeon, backend);
+		return HuntLaunch.random(rand, numSearches, dungeon);
+	}
+
+	/** Runs findManaPeak of every search on the workers and reduces the best one. */
+	DungeonHunterParallel.SearchResult run(HuntParallel[] searches) {
+		return DungeonHunterParallel.runHunt(searches, scheduler, workers, loads, backend);
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * HuntEvents.java
+ * @version Parallel solution
+ *
+ * Java Flight Recorder events of a run: one event per phase (map init, launch, hunt, reduce,
+ * image write) and one per block of hunters a worker ran. They are only recorded while a
+ * flight recording is on, e.g.
+ *   java -XX:StartFlightRecording=filename=hunt.jfr DungeonHunterParallel 100 0.2 42
+ * and cost a check of a flag otherwise.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+public class HuntEvents {
+
+	private HuntEvents() {}
+
+	@Name("dungeon.Phase")
+	@Label("Phase")
+	@Category("Dungeon Hunter")
+	@Description("One phase of a run")
+	@StackTrace(false)
+	static final class PhaseEvent extends Event {
+		@Label("Phase")
+		String phase;
+
+		@Label("Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long nanos;
+	}
+
+	@Name("dungeon.HuntChunk")
+	@Label("Hunt Chunk")
+	@Category("Dungeon Hunter")
+	@Description("A block of consecutive searches run by one worker")
+	@StackTrace(false)
+	static final class ChunkEvent extends Event {
+		@Label("First Search")
+		int firstSearch;
+
+		@Label("Hunters")
+		int hunters;
+
+		@Label("Steps")
+		long steps;
+
+		@Label("Busy Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long busy;
+	}
+
+	static void phase(String phase, long nanos) {
+		PhaseEvent event = new PhaseEvent();
+		if (!event.shouldCommit()) return;
+		event.phase = phase;
+		event.nanos = nanos;
+		event.commit();
+	}
+
+	static void chunk(int firstSearch, int hunters, long steps, long busy) {
+		ChunkEvent event = new ChunkEvent();
+		if (!event.shouldCommit()) return;
+		event.firstSearch = firstSearch;
+		event.hunters = hunters;
+		event.steps = steps;
+		event.busy = busy;
+		event.commit();
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * HuntLaunch.java
+ * @version Parallel solution
+ *
+ * Builds the array of searches for a hunt. The start cells are drawn from the random
+ * number generator exactly as before (row then column for every search), then sorted
+ * along a Z-order (Morton) curve. Cells that were drawn more than once end up next to each
+ * other in the sorted order and only one search is kept for them - the others would stop
+ * on their first step anyway. Hunters that are next to each other in the array therefore
+ * start close together, so a worker that runs a contiguous run of them keeps reusing the
+ * same parts of manaMap and mostly collides with paths it made itself.
+ *
+ * Search ids follow the spatial order, so a given seed always gives the same searches.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public class HuntLaunch {
+
+	private HuntLaunch() {}
+
+	/**
+	 * Draws numSearches start cells and returns one search per distinct cell, in Z-order.
+	 * The keys are sorted on backend.
+	 */
+	static HuntParallel[] spatial(Random rand, int numSearches, DungeonMapParallel dungeon, ExecutionBackend backend) {
+		int rows = dungeon.getRows();
+		int columns = dungeon.getColumns();
+		long[] keys = new long[numSearches];
+		for (int i = 0; i < numSearches; i++) {
+			int row = rand.nextInt(rows);
+			int column = rand.nextInt(columns);
+			keys[i] = zOrder(row, column);
+		}
+		backend.sort(keys);
+
+		// equal cells have equal keys, so after the sort duplicates are neighbours
+		int distinct = 0;
+		for (int i = 0; i < numSearches; i++) {
+			if (i == 0 || keys[i] != keys[i - 1]) keys[distinct++] = keys[i];
+		}
+
+		HuntParallel[] searches = new HuntParallel[distinct];
+		for (int i = 0; i < distinct; i++) {
+			searches[i] = new HuntParallel(i + 1, row(keys[i]), column(keys[i]), dungeon);
+		}
+		return searches;
+	}
+
+	/**
+	 * The searches in the order they are drawn, duplicates included (the original launch).
+	 */
+	static HuntParallel[] random(Random rand, int numSearches, DungeonMapParallel dungeon) {
+		HuntParallel[] searches = new HuntParallel[numSearches];
+		for (int i = 0; i < numSearches; i++) {
+			searches[i] = new HuntParallel(i + 1, rand.nextInt(dungeon.getRows()),
+					rand.nextInt(dungeon.getColumns()), dungeon);
+		}
+		return searches;
+	}
+
+	/** Z-order key of a cell: the bits of row and column interleaved, row bits in the odd positions. */
+	static long zOrder(int row, int column) {
+		return (spread(row) << 1) | spread(column);
+	}
+
+	static int row(long key) {
+		return compact(key >>> 1);
+	}
+
+	static int column(long key) {
+		return compact(key);
+	}
+
+	// moves bit i of the 32-bit value to bit 2i
+	private static long spread(int value) {
+		long v = value & 0xffffffffL;
+		v = (v | (v << 16)) & 0x0000ffff0000ffffL;
+		v = (v | (v << 8)) & 0x00ff00ff00ff00ffL;
+		v = (v | (v << 4)) & 0x0f0f0f0f0f0f0f0fL;
+		v = (v | (v << 2)) & 0x3333333333333333L;
+		v = (v | (v << 1)) & 0x5555555555555555L;
+		return v;
+	}
+
+	// inverse of spread: gathers the even bits back into a 32-bit value
+	private static int compact(long key) {
+		long v = key & 0x5555555555555555L;
+		v = (v | (v >>> 1)) & 0x3333333333333333L;
+		v = (v | (v >>> 2)) & 0x0f0f0f0f0f0f0f0fL;
+		v = (v | (v >>> 4)) & 0x00ff00ff00ff00ffL;
+		v = (v | (v >>> 8)) & 0x0000ffff0000ffffL;
+		v = (v | (v >>> 16)) & 0x00000000ffffffffL;
+		return (int) v;
+	}
+}
@@ -9,11 +9,15 @@
  *M. Kuttel 2025, parallelized by Tracey Letlape
  */
 public class HuntParallel{
-	private final int id;						//  identifier for this hunt
-	private int posRow, posCol;		// Position in the dungeonMap
-	private int steps; 				//number of steps to end of the search
+	private int id;						//  identifier for this hunt
+	int posRow, posCol;		// Position in the dungeonMap
+	int steps; 				//number of steps to end of the search
+	int evaluated;			// cells whose mana this search computed first
 	private boolean stopped;	// Did the search hit a previously searched location?
-	private final DungeonMapParallel dungeon;
+	int power = Integer.MIN_VALUE;	// mana of the last cell claimed
+	private int rowFrom = 0, rowTo = Integer.MAX_VALUE;	// rows this search may climb in, see confineToRows
+	private boolean outside;	// did the search step off its rows?
+	final DungeonMapParallel dungeon;
 	public enum Direction {
 		STAY,
 		LEFT,
@@ -34,55 +38,89 @@ public class HuntParallel{
 		this.stopped = false;
 	}
 
+	/**
+	 * A search that is picked up again where another process left it (see HuntProcesses).
+	 */
+	HuntParallel(int id, int pos_row, int pos_col, int steps, int evaluated, int power, DungeonMapParallel dungeon) {
+		this(id, pos_row, pos_col, dungeon);
+		this.steps = steps;
+		this.evaluated = evaluated;
+		this.power = power;
+	}
+
+	/**
+	 * Makes this a fresh search with id from (pos_row, pos_col), so one object can run
+	 * hunter after hunter (see HuntStream).
+	 */
+	void restart(int id, int pos_row, int pos_col) {
+		this.id = id;
+		this.posRow = pos_row;
+		this.posCol = pos_col;
+		this.steps = 0;
+		this.evaluated = 0;
+		this.stopped = false;
+		this.power = Integer.MIN_VALUE;
+		this.outside = false;
+	}
+
+	/**
+	 * Lets findManaPeak climb only on rows [rowFrom, rowTo). A search that steps onto
+	 * another row stops there with isOutside() true, without claiming the cell; confining
+	 * it to the rows of that cell lets the next findManaPeak climb on from there.
+	 */
+	void confineToRows(int rowFrom, int rowTo) {
+		this.rowFrom = rowFrom;
+		this.rowTo = rowTo;
+		this.outside = false;
+	}
+
 	/**
 	 * Find the local maximum mana from an initial starting point
-	 * Uses the ExecutorService interface to check neighbouring directions all at once.
-	 * Uses a List to store all tasks and another list to store their results.
+	 * Each step is one DungeonMapParallel.climbStep: the neighbourhood is evaluated and the
+	 * direction picked in one pass, and the mana of the next cell comes with it, so the climb
+	 * allocates nothing.
+	 * With a BasinMap, every claimed cell records where it climbed to, and a search that hits
+	 * another path hands its cells to the peak that path leads to (see BasinMap).
+	 * Other strategies override this with their own search (see SearchStrategy) and leave
+	 * the position, steps, evaluated and power of their result in the same fields.
 	 * 
 	 * @return the highest power/mana located
 	 */
 	public int findManaPeak() {
-		int power=Integer.MIN_VALUE;
-		Direction next;
+		int power=this.power;
+		int x=posRow, y=posCol;
+		int here=Integer.MIN_VALUE;	// mana of (x, y), known once the climb has moved
+		BasinMap basins=dungeon.basins();	// null unless the climbs record where they lead
 		
-		while(!dungeon.visited(posRow, posCol)) { // stop when hit existing path
-			power=dungeon.getManaLevel(posRow, posCol);
-			dungeon.setVisited(posRow, posCol, id);
+		while(dungeon.setVisited(x, y, id)) { // stop when hit existing path, claiming is atomic
+			long step=dungeon.climbStep(x, y);
+			evaluated+=DungeonMapParallel.climbEvaluated(step);
+			power=(here==Integer.MIN_VALUE) ? dungeon.getManaLevel(x, y) : here;
 			steps++;
-			next = dungeon.getNextStepDirection(posRow, posCol);
-			if(DungeonHunterParallel.DEBUG) System.out.println("Shadow "+getID()+" moving  "+next);
-			switch(next) {
-				case STAY: return power; //found local valley
-				case LEFT:
-					posRow--;
-					break;
-				case RIGHT:
-					posRow=posRow+1;
-					break;
-				case UP:
-					posCol=posCol-1;
-					break;
-				case DOWN:
-					posCol=posCol+1;
-					break;
-				case UP_LEFT:
-					posCol=posCol-1;
-					posRow--;
-					break;
-				case UP_RIGHT:
-					posCol=posCol-1;
-					posRow=posRow+1;
-					break;
-				case DOWN_LEFT:
-					posCol=posCol+1;
-					posRow--;
-					break;
-				case DOWN_RIGHT:
-					posCol=posCol+1;
-					posRow=posRow+1;
+			int climb=DungeonMapParallel.climbIndex(step);
+			if(DungeonHunterParallel.DEBUG) System.out.println("Shadow "+getID()+" moving  "+DungeonMapParallel.direction(step));
+			if(climb==DungeonMapParallel.STAY_INDEX) { //found local valley
+				posRow=x;
+				posCol=y;
+				this.power=power;
+				if(basins!=null) basins.peak(x, y, power, steps);
+				return power;
+			}
+			here=DungeonMapParallel.climbMana(step);
+			int fromX=x, fromY=y;
+			x+=DungeonMapParallel.dirX[climb];
+			y+=DungeonMapParallel.dirY[climb];
+			if(basins!=null) basins.leads(fromX, fromY, x, y);
+			if (x < rowFrom || x >= rowTo) { // handed on to the owner of the new row
+				outside=true;
+				break;
 			}
 		}
-		stopped=true;
+		if(!outside) stopped=true;
+		if(basins!=null && !outside) basins.drain(x, y, steps); // joined another path, its peak gets our cells
+		posRow=x;
+		posCol=y;
+		this.power=power;
 		return power;
 	}
 
@@ -94,5 +132,11 @@ public class HuntParallel{
 
 	public int getSteps() { return steps;}
 
+	public int getEvaluated() { return evaluated;}
+
 	public boolean isStopped() {return stopped;}
+
+	int getPower() { return power;}
+
+	boolean isOutside() { return outside;}
 }
\ No newline at end of file
@@ -0,0 +1,540 @@
+/**
+ * HuntProcesses.java
+ * @version Parallel solution
+ *
+ * Runs one hunt on several worker JVMs, coordinated over local sockets.
+ * The coordinator cuts the dungeon into strips of rows, one per worker, starts the workers
+ * (java DungeonHunterParallel --worker=PORT --token=TOKEN) and sends every worker the searches that start
+ * in its strip. A worker only claims cells of its own strip, so every cell is claimed by
+ * exactly one process, just like in one JVM. A search that climbs off the strip is sent,
+ * with its position, steps and mana so far, to the worker that owns the new row, through
+ * the coordinator, and goes on climbing there.
+ *
+ * When every search has finished the coordinator stops the workers. Each worker then tells
+ * its neighbours which of their cells it evaluated (only the row next to its strip can have
+ * any), the owner counts the ones it had not evaluated itself, and every worker reports its
+ * best search and the cells of its strip that were evaluated. The maximum, its location and
+ * the number of grid points evaluated are therefore the same as in a single-process run.
+ *
+ * The coordinator listens on a loopback port, which any local program can connect to. So
+ * it gives every worker a random token on its command line (--token), a worker sends it
+ * back first thing, and a connection that does not is closed and not counted as a worker.
+ *
+ * The evaluated count a search carries is what it evaluated in every JVM it climbed in. A
+ * cell next to a border can be evaluated by both strips, so for a search that crossed one
+ * the figure counts evaluations, not distinct cells. The grid points evaluated of the run
+ * are counted per strip and settled at the borders, so they are distinct cells.
+ *
+ * Messages are a type byte followed by ints:
+ *   SETUP     worker, processes, gateSize, seed, the processes + 1 strip boundaries
+ *   HUNTERS   [target worker, when sent by a worker] count, count x (id, row, column, steps, evaluated, mana)
+ *   FINISHED  number of searches that finished
+ *   STOP
+ *   BORDER    target worker, row, count, count x column
+ *   RESULT    id, row, column, steps, evaluated, mana of the best search, cells evaluated (long)
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HuntProcesses {
+
+	private static final byte SETUP = 0, HUNTERS = 1, FINISHED = 2, STOP = 3, BORDER = 4, RESULT = 5;
+	private static final int STATE_INTS = 6;     // id, row, column, steps, evaluated, mana
+	private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+	private static final int TOKEN_TIMEOUT_MILLIS = 10_000;   // for a connection to send its token
+
+	private final int processes;
+	private final String backend;                // --backend of the workers
+	private final String manaCacheDir;           // --mana-cache of the workers, or null
+	private final long token = new SecureRandom().nextLong();   // what a worker sends to prove it was started here
+	private final List<Process> workers = new ArrayList<>();
+	private final Socket[] sockets;
+	private final DataOutputStream[] out;
+	private final DataInputStream[] in;
+	private int[] bounds;
+
+	HuntProcesses(int processes, String backend, String manaCacheDir) {
+		this.processes = processes;
+		this.backend = backend;
+		this.manaCacheDir = manaCacheDir;
+		this.sockets = new Socket[processes];
+		this.out = new DataOutputStream[processes];
+		this.in = new DataInputStream[processes];
+	}
+
+	// ---- coordinator ----
+
+	/**
+	 * Starts the worker processes and sends them the dungeon, so they can build their maps
+	 * while the coordinator draws the start cells. Run the hunt with hunt().
+	 */
+	void start(int rows, int gateSize, int seed) throws IOException {
+		if (rows < processes) throw new IllegalArgumentException("--processes must not be larger than the number of rows.");
+		bounds = strips(rows, processes);
+		try (ServerSocket server = new ServerSocket(0, processes, InetAddress.getLoopbackAddress())) {
+			for (int w = 0; w < processes; w++) workers.add(startWorker(server.getLocalPort()));
+			long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+			for (int w = 0; w < processes; ) {
+				server.setSoTimeout((int) Math.max(1, deadline - System.currentTimeMillis()));
+				Socket socket = server.accept();
+				DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+				if (!sentToken(socket, input)) {
+					socket.close();
+					continue;
+				}
+				sockets[w] = socket;
+				in[w] = input;
+				out[w] = new DataOutputStream(new BufferedOutputStream(sockets[w].getOutputStream(), 1 << 16));
+				out[w].writeByte(SETUP);
+				out[w].writeInt(w);
+				out[w].writeInt(processes);
+				out[w].writeInt(gateSize);
+				out[w].writeInt(seed);
+				for (int bound : bounds) out[w].writeInt(bound);
+				out[w].flush();
+				w++;
+			}
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	// whether a new connection sends the token of this coordinator before it times out
+	private boolean sentToken(Socket socket, DataInputStream input) {
+		try {
+			socket.setSoTimeout(TOKEN_TIMEOUT_MILLIS);
+			boolean sent = input.readLong() == token;
+			socket.setSoTimeout(0);
+			return sent;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Runs the searches on the worker processes and returns the best one, then shuts the
+	 * workers down. The searches array keeps the start cells, except for the finder, which
+	 * is replaced by its final state. The grid points the workers evaluated are added to dungeon.
+	 */
+	DungeonHunterParallel.SearchResult hunt(HuntParallel[] searches, DungeonMapParallel dungeon) throws IOException {
+		try {
+			// every search goes to the owner of its start row
+			List<List<HuntParallel>> starts = new ArrayList<>();
+			for (int w = 0; w < processes; w++) starts.add(new ArrayList<>());
+			for (HuntParallel search : searches) starts.get(owner(bounds, search.getPosRow())).add(search);
+			for (int w = 0; w < processes; w++) {
+				out[w].writeByte(HUNTERS);
+				writeHunters(out[w], starts.get(w));
+				out[w].flush();
+			}
+
+			Relay relay = new Relay(searches.length);
+			Thread[] readers = new Thread[processes];
+			for (int w = 0; w < processes; w++) {
+				final int worker = w;
+				readers[w] = new Thread(() -> relay.serve(worker, in[worker]), "hunt-relay-" + w);
+				readers[w].setDaemon(true);
+				readers[w].start();
+			}
+			if (searches.length == 0) relay.stopAll();
+			for (Thread reader : readers) {
+				try {
+					reader.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the workers.", e);
+				}
+			}
+			if (relay.failure != null) throw new IOException("A worker process failed.", relay.failure);
+
+			int[] best = null;
+			long evaluated = 0;
+			for (int[] result : relay.results) {
+				evaluated += ((long) result[STATE_INTS] << 32) | (result[STATE_INTS + 1] & 0xffffffffL);
+				if (result[0] >= 0 && (best == null || better(result, best))) best = result;
+			}
+			dungeon.addGridPointsEvaluated(evaluated);
+			if (best == null) return new DungeonHunterParallel.SearchResult(Integer.MIN_VALUE, -1);
+			int finder = best[0] - 1;       // ids are index + 1
+			searches[finder] = new HuntParallel(best[0], best[1], best[2], best[3], best[4], best[5], dungeon);
+			return new DungeonHunterParallel.SearchResult(best[5], finder);
+		} finally {
+			close();
+		}
+	}
+
+	// closes the connections and waits for the workers to exit
+	private void close() {
+		for (Socket socket : sockets) {
+			try {
+				if (socket != null) socket.close();
+			} catch (IOException ignored) {
+				// already closed
+			}
+		}
+		for (Process worker : workers) {
+			try {
+				if (!worker.waitFor(10, TimeUnit.SECONDS)) worker.destroyForcibly();
+			} catch (InterruptedException e) {
+				worker.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private Process startWorker(int port) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+				"DungeonHunterParallel", "--worker=" + port, "--token=" + Long.toHexString(token), "--backend=" + backend));
+		if (manaCacheDir != null) command.add("--mana-cache=" + manaCacheDir);
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		return builder.start();
+	}
+
+	// forwards the messages of one worker and collects what the coordinator needs
+	private final class Relay {
+		final int searches;
+		final AtomicLong finished = new AtomicLong();
+		final AtomicBoolean stopped = new AtomicBoolean();
+		final int[][] results;
+		volatile Throwable failure;
+
+		Relay(int searches) {
+			this.searches = searches;
+			this.results = new int[processes][];
+		}
+
+		void serve(int worker, DataInputStream in) {
+			try {
+				while (true) {
+					byte type = in.readByte();
+					if (type == HUNTERS) {
+						int target = in.readInt();
+						int[] states = readStates(in);
+						synchronized (out[target]) {
+							out[target].writeByte(HUNTERS);
+							out[target].writeInt(states.length / STATE_INTS);
+							for (int value : states) out[target].writeInt(value);
+							out[target].flush();
+						}
+					} else if (type == FINISHED) {
+						if (finished.addAndGet(in.readInt()) == searches) stopAll();
+					} else if (type == BORDER) {
+						int target = in.readInt();
+						int row = in.readInt();
+						int[] columns = new int[in.readInt()];
+						for (int i = 0; i < columns.length; i++) columns[i] = in.readInt();
+						synchronized (out[target]) {
+							out[target].writeByte(BORDER);
+							out[target].writeInt(row);
+							out[target].writeInt(columns.length);
+							for (int column : columns) out[target].writeInt(column);
+							out[target].flush();
+						}
+					} else if (type == RESULT) {
+						int[] result = new int[STATE_INTS + 2];
+						for (int i = 0; i < STATE_INTS; i++) result[i] = in.readInt();
+						long evaluated = in.readLong();
+						result[STATE_INTS] = (int) (evaluated >>> 32);
+						result[STATE_INTS + 1] = (int) evaluated;
+						results[worker] = result;
+						return;
+					} else {
+						throw new IOException("Unexpected message " + type + " from worker " + worker + ".");
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				fail(e);
+			}
+		}
+
+		// a lost worker ends the hunt: closing every socket wakes the other relays up
+		void fail(Throwable e) {
+			if (failure == null) failure = e;
+			for (Socket socket : sockets) {
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+					// already closed
+				}
+			}
+		}
+
+		void stopAll() {
+			if (!stopped.compareAndSet(false, true)) return;
+			try {
+				for (DataOutputStream stream : out) {
+					synchronized (stream) {
+						stream.writeByte(STOP);
+						stream.flush();
+					}
+				}
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+	}
+
+	// ---- worker ----
+
+	/**
+	 * Runs a worker process: connects to the coordinator on port, sends it token, hunts on
+	 * its strip until the coordinator says stop and reports back.
+	 * @return the exit status of the process
+	 */
+	static int work(int port, long token, ExecutionBackend backend, String manaCacheDir) {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+			out.writeLong(token);
+			out.flush();
+			if (in.readByte() != SETUP) throw new IOException("The coordinator did not send the set-up.");
+			int worker = in.readInt();
+			int processes = in.readInt();
+			int gateSize = in.readInt();
+			int seed = in.readInt();
+			int[] bounds = new int[processes + 1];
+			for (int i = 0; i <= processes; i++) bounds[i] = in.readInt();
+
+			// only the cells a worker touches get memory, so the strips together fit where one map would not
+			DungeonMapParallel dungeon = new DungeonMapParallel(-gateSize, gateSize, -gateSize, gateSize, seed,
+					backend, new DungeonMapParallel.Grids(true));
+			// the workers share one cache file, each writes the cells of its strip
+			try (ManaCache manaCache = manaCacheDir != null && seed > 0
+					? ManaCache.open(new File(manaCacheDir), seed, dungeon) : null) {
+				dungeon.useManaCache(manaCache);
+				new Worker(worker, bounds, dungeon, backend, in, out).run();
+			}
+			return 0;
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Error: worker on port " + port + ": " + e);
+			return 1;
+		}
+	}
+
+	private static final class Worker {
+		private static final Object STOPPED = new Object();
+
+		final int worker, rowFrom, rowTo;
+		final int[] bounds;
+		final DungeonMapParallel dungeon;
+		final ExecutionBackend backend;
+		final DataInputStream in;
+		final DataOutputStream out;
+		final BlockingQueue<Object> inbox = new LinkedBlockingQueue<>();   // int[] states, int[] border cells or STOPPED
+		final List<int[]> borders = new ArrayList<>();
+		volatile IOException readFailure;
+		int[] best;                      // id, row, column, steps, evaluated, mana
+
+		Worker(int worker, int[] bounds, DungeonMapParallel dungeon, ExecutionBackend backend,
+				DataInputStream in, DataOutputStream out) {
+			this.worker = worker;
+			this.bounds = bounds;
+			this.rowFrom = bounds[worker];
+			this.rowTo = bounds[worker + 1];
+			this.dungeon = dungeon;
+			this.backend = backend;
+			this.in = in;
+			this.out = out;
+		}
+
+		void run() throws IOException {
+			Thread reader = new Thread(this::read, "hunt-inbox");
+			reader.setDaemon(true);
+			reader.start();
+
+			boolean stopped = false;
+			List<Object> messages = new ArrayList<>();
+			while (!stopped) {
+				messages.clear();
+				messages.add(take());
+				inbox.drainTo(messages);
+				List<HuntParallel> batch = new ArrayList<>();
+				for (Object message : messages) {
+					if (message == STOPPED) stopped = true;
+					else if (((int[]) message).length > 0 && ((int[]) message)[0] == BORDER) borders.add((int[]) message);
+					else addHunters((int[]) message, batch);
+				}
+				if (!batch.isEmpty()) hunt(batch.toArray(new HuntParallel[0]));
+			}
+			exchangeBorders();
+		}
+
+		private void addHunters(int[] message, List<HuntParallel> batch) {
+			for (int i = 1; i < message.length; i += STATE_INTS) {
+				HuntParallel search = new HuntParallel(message[i], message[i + 1], message[i + 2],
+						message[i + 3], message[i + 4], message[i + 5], dungeon);
+				search.confineToRows(rowFrom, rowTo);
+				batch.add(search);
+			}
+		}
+
+		// runs a batch on this process's backend, then hands on the searches that left the strip
+		private void hunt(HuntParallel[] batch) throws IOException {
+			DungeonHunterParallel.runHunt(batch, "adaptive", backend.parallelism(), null, backend);
+			List<List<HuntParallel>> leaving = new ArrayList<>();
+			for (int w = 0; w < bounds.length - 1; w++) leaving.add(new ArrayList<>());
+			int finished = 0;
+			for (HuntParallel search : batch) {
+				if (search.isOutside()) {
+					leaving.get(owner(bounds, search.getPosRow())).add(search);
+					continue;
+				}
+				finished++;
+				int[] state = state(search);
+				if (best == null || better(state, best)) best = state;
+			}
+			for (int w = 0; w < leaving.size(); w++) {
+				if (leaving.get(w).isEmpty()) continue;
+				out.writeByte(HUNTERS);
+				out.writeInt(w);
+				writeHunters(out, leaving.get(w));
+			}
+			out.writeByte(FINISHED);
+			out.writeInt(finished);
+			out.flush();
+		}
+
+		// tells the neighbours which of their cells were evaluated here, counts theirs, and reports
+		private void exchangeBorders() throws IOException {
+			long foreign = 0;
+			int neighbours = 0;
+			int columns = dungeon.getColumns();
+			for (int side = 0; side < 2; side++) {
+				int row = side == 0 ? rowFrom - 1 : rowTo;
+				int neighbour = side == 0 ? worker - 1 : worker + 1;
+				if (row < 0 || row >= dungeon.getRows()) continue;
+				neighbours++;
+				int[] cells = new int[columns];
+				int count = 0;
+				for (int column = 0; column < columns; column++) {
+					if (dungeon.evaluated(row, column)) cells[count++] = column;
+				}
+				foreign += count;
+				out.writeByte(BORDER);
+				out.writeInt(neighbour);
+				out.writeInt(row);
+				out.writeInt(count);
+				for (int i = 0; i < count; i++) out.writeInt(cells[i]);
+			}
+			out.flush();
+
+			while (borders.size() < neighbours) {
+				Object message = take();
+				if (message instanceof int[]) borders.add((int[]) message);
+			}
+			for (int[] border : borders) {
+				for (int i = 2; i < border.length; i++) dungeon.getManaLevel(border[1], border[i]);   // counts it if it is new here
+			}
+
+			int[] result = best == null ? new int[] {-1, 0, 0, 0, 0, Integer.MIN_VALUE} : best;
+			out.writeByte(RESULT);
+			for (int value : result) out.writeInt(value);
+			out.writeLong(dungeon.getGridPointsEvaluated() - foreign);
+			out.flush();
+		}
+
+		private Object take() throws IOException {
+			try {
+				while (true) {
+					Object message = inbox.poll(100, TimeUnit.MILLISECONDS);
+					if (message != null) return message;
+					if (readFailure != null) throw readFailure;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the coordinator.", e);
+			}
+		}
+
+		// HUNTERS become {HUNTERS, states...}, BORDER becomes {BORDER, row, columns...}
+		private void read() {
+			try {
+				while (true) {
+					byte type = in.readByte();
+					if (type == HUNTERS) {
+						int[] states = readStates(in);
+						int[] message = new int[states.length + 1];
+						message[0] = HUNTERS;
+						System.arraycopy(states, 0, message, 1, states.length);
+						inbox.add(message);
+					} else if (type == BORDER) {
+						int row = in.readInt();
+						int[] message = new int[in.readInt() + 2];
+						message[0] = BORDER;
+						message[1] = row;
+						for (int i = 2; i < message.length; i++) message[i] = in.readInt();
+						inbox.add(message);
+					} else if (type == STOP) {
+						inbox.add(STOPPED);
+					} else {
+						throw new IOException("Unexpected message " + type + " from the coordinator.");
+					}
+				}
+			} catch (IOException e) {
+				readFailure = e;
+			}
+		}
+	}
+
+	// ---- shared ----
+
+	/** Boundaries of processes strips of about the same number of rows: strip w is [bounds[w], bounds[w + 1]). */
+	static int[] strips(int rows, int processes) {
+		int[] bounds = new int[processes + 1];
+		for (int w = 0; w <= processes; w++) bounds[w] = (int) ((long) rows * w / processes);
+		return bounds;
+	}
+
+	/** The strip that holds row. */
+	static int owner(int[] bounds, int row) {
+		int strip = Arrays.binarySearch(bounds, row);
+		return strip >= 0 ? strip : -strip - 2;
+	}
+
+	private static int[] state(HuntParallel search) {
+		return new int[] {search.getID(), search.getPosRow(), search.getPosCol(),
+				search.getSteps(), search.getEvaluated(), search.getPower()};
+	}
+
+	// more mana wins, ties go to the lowest id, like the lowest index in one process
+	private static boolean better(int[] state, int[] best) {
+		return state[5] > best[5] || (state[5] == best[5] && state[0] < best[0]);
+	}
+
+	private static void writeHunters(DataOutputStream out, List<HuntParallel> searches) throws IOException {
+		out.writeInt(searches.size());
+		for (HuntParallel search : searches) {
+			for (int value : state(search)) out.writeInt(value);
+		}
+	}
+
+	private static int[] readStates(DataInputStream in) throws IOException {
+		int[] states = new int[in.readInt() * STATE_INTS];
+		for (int i = 0; i < states.length; i++) states[i] = in.readInt();
+		return states;
+	}
+}
@@ -0,0 +1,265 @@
+/**
+ * HuntRegions.java
+ * @version Parallel solution
+ *
+ * The region-owned hunt (--scheduler=regions). The dungeon is cut into strips of rows, one
+ * per worker, and worker r only climbs in strip r: every search is queued to the owner of its
+ * start row, climbs there (confineToRows) and, when it steps onto another strip, is handed to
+ * that strip's owner to go on climbing. So a worker only claims cells of its own strip.
+ *
+ * The strips are whole rows of pages (PagedIntGrid.PAGE_SIZE rows), so no page is shared by
+ * two strips, and with paged grids each page is allocated by the owner of its strip (first
+ * touch; run the JVM with -XX:+UseNUMA so the pages come from the node of the thread that
+ * allocates them). The one exception is the row next to a border: a climb on the last row of
+ * a strip evaluates its neighbours on the first row of the next, and stores their mana there.
+ * So before the hunt every owner allocates the first and last row of pages of its strip
+ * itself, and a neighbour only writes cells into pages that are already there.
+ *
+ * Hand-offs go through a bounded lock-free mailbox per region (Mailbox) holding search
+ * indices; when it is full the search goes to an unbounded overflow queue of the region
+ * instead, so a sender never waits. A worker whose queue and mailbox are empty parks while
+ * some other worker is still climbing (a sender unparks the owner it hands a search to, the
+ * last worker to stop climbing and the last search to finish unpark them all), then leaves; searches handed to a region after its
+ * owner left are picked up in another round of the workers, so the hunt also ends on
+ * backends that run fewer workers at once than there are regions.
+ *
+ * Every cell is still claimed exactly once and every path climbed to its end, so the
+ * maximum, the finder (ties to the lowest index) and the cells evaluated are those of the
+ * other schedulers. With worker loads recorded, every region reports the hunters it
+ * finished, its steps and hand-offs and its busy time (see WorkerLoads).
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class HuntRegions {
+
+	static final int MAILBOX_CAPACITY = 1024;   // hand-offs a region holds before they overflow, a power of two
+
+	/**
+	 * Bounded multi-producer, single-consumer queue of search indices: producers reserve a
+	 * slot by advancing tail with a compare-and-set, then fill it; only the owner takes.
+	 */
+	static final class Mailbox {
+		private static final int EMPTY = -1;
+		private final AtomicIntegerArray slots;
+		private final int mask;
+		private final AtomicLong tail = new AtomicLong();
+		private volatile long head;            // written by the owner only
+
+		Mailbox(int capacity) {
+			slots = new AtomicIntegerArray(capacity);
+			for (int i = 0; i < capacity; i++) slots.set(i, EMPTY);
+			mask = capacity - 1;
+		}
+
+		/** Adds search, false if the mailbox is full. */
+		boolean offer(int search) {
+			while (true) {
+				long t = tail.get();
+				if (t - head > mask) return false;
+				if (tail.compareAndSet(t, t + 1)) {
+					slots.set((int) t & mask, search);
+					return true;
+				}
+			}
+		}
+
+		/** The oldest search, or EMPTY if there is none or its sender has not filled the slot yet. Owner only. */
+		int poll() {
+			int slot = (int) head & mask;
+			int search = slots.get(slot);
+			if (search == EMPTY) return EMPTY;
+			slots.set(slot, EMPTY);
+			head = head + 1;
+			return search;
+		}
+
+		boolean isEmpty() {
+			return tail.get() == head;
+		}
+	}
+
+	/** A strip and what its owner keeps: its own queue, its mailbox, its load and its best search. */
+	private static final class Region {
+		final int rowFrom, rowTo;
+		final Mailbox mailbox = new Mailbox(MAILBOX_CAPACITY);
+		final ConcurrentLinkedQueue<Integer> overflow = new ConcurrentLinkedQueue<>();   // hand-offs that found the mailbox full
+		final WorkerLoads.RegionLoad load;
+		private int[] queue = new int[16];           // the owner's searches, a growing ring
+		private int head, size;
+		int bestMana = Integer.MIN_VALUE, bestIndex = -1;
+		volatile Thread waiter;                      // the owner while it is parked waiting for mail
+
+		Region(int rowFrom, int rowTo) {
+			this.rowFrom = rowFrom;
+			this.rowTo = rowTo;
+			this.load = new WorkerLoads.RegionLoad(rowFrom, rowTo);
+		}
+
+		void push(int search) {
+			if (size == queue.length) {
+				int[] grown = new int[queue.length * 2];
+				for (int k = 0; k < size; k++) grown[k] = queue[(head + k) % queue.length];
+				queue = grown;
+				head = 0;
+			}
+			queue[(head + size++) % queue.length] = search;
+		}
+
+		int pop() {
+			int search = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			return search;
+		}
+
+		boolean hasMail() {
+			return !mailbox.isEmpty() || !overflow.isEmpty();
+		}
+
+		/** Hands search i to this region and wakes its owner if it is waiting; false if it went to the overflow queue. */
+		boolean send(int i) {
+			boolean fits = mailbox.offer(i);
+			if (!fits) overflow.add(i);
+			LockSupport.unpark(waiter);
+			return fits;
+		}
+
+		// moves the hand-offs into the own queue
+		void collect() {
+			for (int search; (search = mailbox.poll()) != Mailbox.EMPTY; load.handedIn++) push(search);
+			for (Integer search; (search = overflow.poll()) != null; load.handedIn++) push(search);
+		}
+	}
+
+	private final HuntParallel[] searches;
+	private final WorkerLoads loads;
+	private final int[] bounds;                      // region r is rows [bounds[r], bounds[r + 1])
+	private final Region[] regions;
+	private final AtomicInteger climbing = new AtomicInteger();   // workers that are not waiting
+	private final AtomicInteger remaining;                        // searches not finished yet
+
+	/** The searches of one dungeon, split over one region per worker (fewer if it has fewer rows of pages). */
+	HuntRegions(HuntParallel[] searches, int workers, WorkerLoads loads) {
+		this.searches = searches;
+		this.loads = loads;
+		int rows = searches.length > 0 ? searches[0].dungeon.getRows() : 1;
+		this.bounds = pageStrips(rows, workers);
+		this.regions = new Region[bounds.length - 1];
+		for (int r = 0; r < regions.length; r++) regions[r] = new Region(bounds[r], bounds[r + 1]);
+		for (int i = 0; i < searches.length; i++) regions[HuntProcesses.owner(bounds, searches[i].getPosRow())].push(i);
+		this.remaining = new AtomicInteger(searches.length);
+	}
+
+	/** Strip bounds for up to regions strips of rows, each a whole number of pages (the last one ends at rows). */
+	static int[] pageStrips(int rows, int regions) {
+		int pageRows = (rows + PagedIntGrid.PAGE_MASK) >> PagedIntGrid.PAGE_SHIFT;
+		int[] bounds = HuntProcesses.strips(pageRows, Math.max(1, Math.min(regions, pageRows)));
+		for (int r = 0; r < bounds.length; r++) bounds[r] = Math.min(rows, bounds[r] << PagedIntGrid.PAGE_SHIFT);
+		return bounds;
+	}
+
+	/**
+	 * Runs every search on the backend, each on the owners of the strips it climbs through,
+	 * and returns the best one. Ties go to the lowest index, like HuntTask.
+	 */
+	DungeonHunterParallel.SearchResult run(ExecutionBackend backend) {
+		List<Callable<Void>> touches = new ArrayList<>();
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (Region region : regions) {
+			touches.add(() -> {
+				touchBorders(region);
+				return null;
+			});
+			tasks.add(() -> {
+				work(region);
+				return null;
+			});
+		}
+		if (searches.length > 0) backend.invokeAll(touches);
+		while (remaining.get() > 0) backend.invokeAll(tasks);   // one round is enough when the workers run at once
+		if (loads != null) {
+			WorkerLoads.RegionLoad[] done = new WorkerLoads.RegionLoad[regions.length];
+			for (int r = 0; r < regions.length; r++) done[r] = regions[r].load;
+			loads.record(done);
+		}
+
+		int max = Integer.MIN_VALUE, finder = -1;
+		for (Region region : regions) {
+			int index = region.bestIndex;
+			if (index >= 0 && (finder < 0 || region.bestMana > max || (region.bestMana == max && index < finder))) {
+				max = region.bestMana;
+				finder = index;
+			}
+		}
+		return new DungeonHunterParallel.SearchResult(max, finder);
+	}
+
+	// the owner allocates the rows of pages at both ends of its strip, the ones its neighbours' climbs reach
+	private void touchBorders(Region region) {
+		DungeonMapParallel dungeon = searches[0].dungeon;
+		int last = (region.rowTo - 1) & ~PagedIntGrid.PAGE_MASK;
+		dungeon.touchRows(region.rowFrom, Math.min(region.rowTo, region.rowFrom + PagedIntGrid.PAGE_SIZE));
+		if (last > region.rowFrom) dungeon.touchRows(last, region.rowTo);
+	}
+
+	private void work(Region region) {
+		climbing.incrementAndGet();
+		while (true) {
+			region.collect();
+			if (region.size > 0) {
+				long begin = System.nanoTime();
+				while (region.size > 0) climb(region, region.pop());
+				long busy = System.nanoTime() - begin;
+				region.load.busyNanos += busy;
+				if (loads != null) loads.busy(busy);
+				continue;
+			}
+			// nothing to climb: park until mail comes, or until no other worker is left to send any
+			if (climbing.decrementAndGet() == 0) wakeAll();
+			region.waiter = Thread.currentThread();   // published before the checks, so a sender or waker sees it
+			while (!region.hasMail() && climbing.get() > 0 && remaining.get() > 0) LockSupport.park(this);
+			region.waiter = null;
+			if (!region.hasMail()) return;   // a search handed on after this is picked up in the next round
+			climbing.incrementAndGet();
+		}
+	}
+
+	// unparks every waiting owner, so each checks again whether it is the last one
+	private void wakeAll() {
+		for (Region region : regions) LockSupport.unpark(region.waiter);
+	}
+
+	// climbs search i in region until it finishes or steps onto another region
+	private void climb(Region region, int i) {
+		HuntParallel search = searches[i];
+		WorkerLoads.RegionLoad load = region.load;
+		int steps = search.getSteps();
+		search.confineToRows(region.rowFrom, region.rowTo);
+		int localMax = search.findManaPeak();
+		load.steps += search.getSteps() - steps;
+		if (search.isOutside()) {
+			Region owner = regions[HuntProcesses.owner(bounds, search.getPosRow())];
+			load.handedOut++;
+			if (!owner.send(i)) load.overflowed++;
+			return;
+		}
+		load.hunters++;
+		if (loads != null) loads.record(search);
+		if (region.bestIndex < 0 || localMax > region.bestMana || (localMax == region.bestMana && i < region.bestIndex)) {
+			region.bestMana = localMax;
+			region.bestIndex = i;
+		}
+		if (remaining.decrementAndGet() == 0) wakeAll();
+	}
+}
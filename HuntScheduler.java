@@ -0,0 +1,122 @@
+/**
+ * HuntScheduler.java
+ * @version Parallel solution
+ *
+ * Hands the searches out to a fixed set of workers in chunks.
+ * Every worker owns a contiguous run of the searches array (HuntLaunch sorts the array
+ * spatially, so a run is one part of the dungeon) and takes chunks from the front of its
+ * own run. A worker that runs out helps the others by taking chunks from their runs.
+ *
+ * Hunt lengths vary a lot (most hunters stop after a few steps on somebody else's path,
+ * a few climb long ridges), so the chunk size adapts to the steps observed so far:
+ * it aims for about TARGET_STEPS steps of work per chunk (or the chunkSteps of the backend's
+ * cutoffs, see CutoffProfile) and never takes more than a
+ * quarter of what is left in the run, so the last chunks are small and no worker
+ * is left with a long tail.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HuntScheduler {
+
+	static final int FIRST_CHUNK = 8;         // before any hunt has finished
+	static final long TARGET_STEPS = 2048;    // steps of work per chunk once hunts have been seen
+
+	private final HuntParallel[] searches;
+	private final int workers;
+	private final WorkerLoads loads;
+	private final AtomicInteger[] next;       // next search of every worker's run
+	private final int[] end;                  // end of every worker's run
+	private final LongAdder huntersDone = new LongAdder();
+	private final LongAdder stepsDone = new LongAdder();
+	private long targetSteps = TARGET_STEPS;
+
+	HuntScheduler(HuntParallel[] searches, int workers, WorkerLoads loads) {
+		this.searches = searches;
+		this.workers = workers;
+		this.loads = loads;
+		this.next = new AtomicInteger[workers];
+		this.end = new int[workers];
+		for (int w = 0; w < workers; w++) {
+			next[w] = new AtomicInteger((int) ((long) searches.length * w / workers));
+			end[w] = (int) ((long) searches.length * (w + 1) / workers);
+		}
+	}
+
+	/**
+	 * Runs every search on the backend and returns the best one.
+	 * Ties go to the lowest index, like HuntTask.
+	 */
+	DungeonHunterParallel.SearchResult run(ExecutionBackend backend) {
+		targetSteps = backend.cutoffs().chunkSteps;
+		List<Callable<DungeonHunterParallel.SearchResult>> tasks = new ArrayList<>();
+		for (int w = 0; w < workers; w++) {
+			final int worker = w;
+			tasks.add(() -> work(worker));
+		}
+
+		DungeonHunterParallel.SearchResult best = new DungeonHunterParallel.SearchResult(Integer.MIN_VALUE, -1);
+		for (DungeonHunterParallel.SearchResult result : backend.invokeAll(tasks)) {
+			if (better(result.maxMana, result.finderIndex, best.maxMana, best.finderIndex)) best = result;
+		}
+		return best;
+	}
+
+	private static boolean better(int mana, int index, int bestMana, int bestIndex) {
+		if (index < 0) return false;
+		return bestIndex < 0 || mana > bestMana || (mana == bestMana && index < bestIndex);
+	}
+
+	// own run first, then help the other workers in turn
+	private DungeonHunterParallel.SearchResult work(int worker) {
+		int max = Integer.MIN_VALUE;
+		int finder = -1;
+		for (int k = 0; k < workers; k++) {
+			int run = (worker + k) % workers;
+			while (true) {
+				int size = nextChunkSize(run);
+				int start = next[run].getAndAdd(size);
+				if (start >= end[run]) break;
+				int stop = Math.min(end[run], start + size);
+
+				long begin = System.nanoTime();
+				long steps = 0;
+				for (int i = start; i < stop; i++) {
+					int localMax = searches[i].findManaPeak();
+					steps += searches[i].getSteps();
+					if (better(localMax, i, max, finder)) {
+						max = localMax;
+						finder = i;
+					}
+					if (DungeonHunterParallel.DEBUG) {
+						System.out.println("Shadow " + searches[i].getID() +
+						" finished at " + localMax + " in " + searches[i].getSteps());
+					}
+				}
+				huntersDone.add(stop - start);
+				stepsDone.add(steps);
+				long busy = System.nanoTime() - begin;
+				if (loads != null) loads.record(searches, start, stop, busy);
+				HuntEvents.chunk(start, stop - start, steps, busy);
+			}
+		}
+		return new DungeonHunterParallel.SearchResult(max, finder);
+	}
+
+	private int nextChunkSize(int run) {
+		int remaining = end[run] - next[run].get();
+		int guided = Math.max(1, remaining / 4);
+		long done = huntersDone.sum();
+		if (done == 0) return Math.min(FIRST_CHUNK, guided);
+		long averageSteps = Math.max(1, stepsDone.sum() / done);
+		int byWork = (int) Math.max(1, targetSteps / averageSteps);
+		return Math.min(guided, byWork);
+	}
+}
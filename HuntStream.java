@@ -0,0 +1,112 @@
+/**
+ * HuntStream.java
+ * @version Parallel solution
+ *
+ * The climb without an array of searches (--launch=stream). Hunter i starts on a cell that
+ * is a pure function of the seed of the run and i: the (i+1)-th output of a SplittableRandom
+ * stream, computed directly from the counter (draw), so any worker can generate the start
+ * of any hunter. The workers take chunks of hunter indices from a shared counter and run
+ * them one after the other on a single HuntParallel each (restart), keeping only the best
+ * hunter seen. Starting a hunt therefore costs no memory per hunter and no sequential
+ * launch, and a seed always gives the same starts.
+ *
+ * Only the finder survives the hunt, as a HuntParallel in its end state, so the report can
+ * still give its position. Starts are not deduplicated or sorted as in HuntLaunch.spatial:
+ * a hunter that starts on a cell already claimed stops on its first step.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HuntStream {
+
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;   // the increment of SplittableRandom
+	static final int MAX_CHUNK = 1024;                        // hunters a worker takes at a time
+
+	private final long seed;
+	private final int numSearches;
+	private final DungeonMapParallel dungeon;
+	private final AtomicInteger next = new AtomicInteger();
+
+	HuntStream(long seed, int numSearches, DungeonMapParallel dungeon) {
+		this.seed = seed;
+		this.numSearches = numSearches;
+		this.dungeon = dungeon;
+	}
+
+	/** 64 random bits for hunter index: row in the high half, column in the low half. */
+	static long draw(long seed, int index) {
+		long z = seed + (index + 1L) * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return z ^ (z >>> 33);
+	}
+
+	// the high or low 32 bits of a draw scaled to [0, bound)
+	static int scale(long bits, int bound) {
+		return (int) (((bits & 0xffffffffL) * bound) >>> 32);
+	}
+
+	/** Number of hunters. */
+	int size() {
+		return numSearches;
+	}
+
+	/**
+	 * Hunts every hunter with workers tasks on backend.
+	 * @return the finder in its end state; ties go to the lowest id, like the other schedulers
+	 */
+	HuntParallel run(ExecutionBackend backend, int workers, WorkerLoads loads) {
+		List<Callable<HuntParallel>> tasks = new ArrayList<>();
+		for (int w = 0; w < workers; w++) tasks.add(() -> work(workers, loads));
+		HuntParallel best = null;
+		for (HuntParallel found : backend.invokeAll(tasks)) {
+			if (found != null && (best == null || found.getPower() > best.getPower()
+					|| (found.getPower() == best.getPower() && found.getID() < best.getID()))) {
+				best = found;
+			}
+		}
+		return best;
+	}
+
+	private HuntParallel work(int workers, WorkerLoads loads) {
+		HuntParallel hunter = new HuntParallel(0, 0, 0, dungeon);
+		int rows = dungeon.getRows(), columns = dungeon.getColumns();
+		int bestId = 0, bestRow = 0, bestColumn = 0, bestSteps = 0, bestEvaluated = 0;
+		int max = Integer.MIN_VALUE;
+		while (true) {
+			int remaining = numSearches - next.get();
+			int chunk = Math.max(1, Math.min(MAX_CHUNK, remaining / (4 * workers)));
+			int start = next.getAndAdd(chunk);
+			if (start >= numSearches) break;
+			int stop = Math.min(numSearches, start + chunk);
+			long begin = System.nanoTime();
+			long steps = 0;
+			for (int i = start; i < stop; i++) {
+				long bits = draw(seed, i);
+				hunter.restart(i + 1, scale(bits >>> 32, rows), scale(bits, columns));
+				int localMax = hunter.findManaPeak();
+				steps += hunter.getSteps();
+				if (loads != null) loads.record(hunter);
+				if (localMax > max) {   // a worker's indices only grow, so the first of equals is kept
+					max = localMax;
+					bestId = i + 1;
+					bestRow = hunter.getPosRow();
+					bestColumn = hunter.getPosCol();
+					bestSteps = hunter.getSteps();
+					bestEvaluated = hunter.getEvaluated();
+				}
+			}
+			long busy = System.nanoTime() - begin;
+			if (loads != null) loads.busy(busy);
+			HuntEvents.chunk(start, stop - start, steps, busy);
+		}
+		if (bestId == 0) return null;
+		return new HuntParallel(bestId, bestRow, bestColumn, bestSteps, bestEvaluated, max, dungeon);
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * HuntTempering.java
+ * @version Parallel solution
+ *
+ * Parallel tempering (--strategy=temper). The chains (HuntAnnealing.Chain) form ladders of
+ * REPLICAS replicas, each at its own fixed temperature, geometric from COLD to HOT; the
+ * radius of a replica's moves grows with its temperature. The hunt runs in rounds of
+ * ROUND_MOVES moves, every replica on whichever worker the scheduler gives it; between two
+ * rounds the neighbours of each ladder exchange their states with the replica-exchange
+ * probability min(1, exp((m_j - m_i)(1/T_i - 1/T_j))), even pairs after even rounds and
+ * odd pairs after odd ones. Hot replicas roam the dungeon and hand the high cells they find
+ * down to the cold ones, which settle on them. A last round climbs every replica from the
+ * best cell it has seen to the top of that peak.
+ *
+ * Every replica and the exchanges have generators of their own, seeded from the run, so a
+ * seeded hunt is the same on any number of workers.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public class HuntTempering implements SearchStrategy {
+
+	static final int DEFAULT_SWEEPS = 1024;
+	static final int REPLICAS = 8;
+	static final int ROUND_MOVES = 16;
+
+	static final double HOT = 3.0 * DungeonMapParallel.PRECISION;
+	static final double COLD = 0.05 * DungeonMapParallel.PRECISION;
+
+	private final int chains, sweeps;
+
+	private long exchangeSeed;         // drawn by launch
+	// the last hunt, for the report
+	private long exchanges, accepted;
+
+	/** @param chains number of replicas (rounded up to whole ladders), 0 for one per HuntAnnealing.SEARCHES_PER_CHAIN searches */
+	HuntTempering(int chains, int sweeps) {
+		if (chains < 0) throw new IllegalArgumentException("--chains must not be negative (0 picks the number from the searches).");
+		if (sweeps <= 0) throw new IllegalArgumentException("--sweeps must be greater than 0.");
+		this.chains = chains;
+		this.sweeps = sweeps;
+	}
+
+	@Override
+	public String name() {
+		return "temper";
+	}
+
+	@Override
+	public HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon, HuntDriver driver) {
+		int count = chains > 0 ? chains : Math.max(driver.workers, numSearches / HuntAnnealing.SEARCHES_PER_CHAIN);
+		int ladders = (count + REPLICAS - 1) / REPLICAS;
+		double radius = Math.max(1.0, dungeon.getRows() / (double) HuntAnnealing.RADIUS_SHARE) / HOT;
+		HuntAnnealing.Chain[] searches = new HuntAnnealing.Chain[ladders * REPLICAS];
+		for (int i = 0; i < searches.length; i++) {
+			searches[i] = new HuntAnnealing.Chain(i + 1, rand.nextInt(dungeon.getRows()), rand.nextInt(dungeon.getColumns()),
+					dungeon, rand.nextLong(), radius);
+			searches[i].temperature = temperature(i % REPLICAS);
+		}
+		exchangeSeed = rand.nextLong();
+		return searches;
+	}
+
+	/** Temperature of rung r of a ladder, 0 the coldest. */
+	static double temperature(int r) {
+		return COLD * Math.pow(HOT / COLD, r / (double) (REPLICAS - 1));
+	}
+
+	/** Runs the rounds and exchanges, then the climbing round. */
+	@Override
+	public DungeonHunterParallel.SearchResult hunt(HuntParallel[] searches, HuntDriver driver) {
+		HuntAnnealing.Chain[] replicas = (HuntAnnealing.Chain[]) searches;
+		Random exchange = new Random(exchangeSeed);
+		int rounds = Math.max(1, sweeps / ROUND_MOVES);
+		exchanges = 0;
+		accepted = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (HuntAnnealing.Chain replica : replicas) {
+				replica.schedule(ROUND_MOVES, replica.temperature, replica.temperature, false);
+			}
+			driver.run(replicas);
+			for (int ladder = 0; ladder < replicas.length; ladder += REPLICAS) {
+				for (int r = round & 1; r + 1 < REPLICAS; r += 2) {
+					exchanges++;
+					if (exchange(replicas[ladder + r], replicas[ladder + r + 1], exchange)) accepted++;
+				}
+			}
+		}
+		for (HuntAnnealing.Chain replica : replicas) {
+			replica.schedule(0, replica.temperature, replica.temperature, true);
+		}
+		return driver.run(replicas);
+	}
+
+	// swaps the states of a colder and a hotter replica with the replica-exchange probability
+	private static boolean exchange(HuntAnnealing.Chain cold, HuntAnnealing.Chain hot, Random random) {
+		double log = (hot.mana - (double) cold.mana) * (1.0 / cold.temperature - 1.0 / hot.temperature);
+		if (log < 0 && random.nextDouble() >= Math.exp(log)) return false;
+		int x = cold.x, y = cold.y, mana = cold.mana;
+		cold.x = hot.x;
+		cold.y = hot.y;
+		cold.mana = hot.mana;
+		hot.x = x;
+		hot.y = y;
+		hot.mana = mana;
+		return true;
+	}
+
+	@Override
+	public String report(HuntParallel[] searches) {
+		return String.format("\t Tempering ladders: %d of %d replicas, %d rounds of %d moves, %d of %d exchanges accepted\n",
+				searches.length / REPLICAS, REPLICAS, Math.max(1, sweeps / ROUND_MOVES), ROUND_MOVES, accepted, exchanges);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * IntGrid.java
+ * @version Parallel solution
+ *
+ * A rows x columns grid of ints used for the dungeon's mana.
+ * Cells are addressed either by (x, y) or by a long index from index(x, y), which lets
+ * callers look a cell up once and reuse the position. Two grids of the same size made
+ * by create() (or by createReusable()) use the same layout, so an index from one is valid
+ * in the other.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+public abstract class IntGrid {
+
+	// grids with more cells than this are paged, so only the parts that are touched take memory
+	static final long FLAT_LIMIT = 1L << 26;
+
+	protected final int rows, columns;
+
+	protected IntGrid(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	/**
+	 * A grid with every cell set to initialValue: one flat array for small grids,
+	 * pages allocated on first write for large ones.
+	 */
+	static IntGrid create(int rows, int columns, int initialValue) {
+		if ((long) rows * columns <= FLAT_LIMIT) return new TiledIntGrid(rows, columns, initialValue);
+		return new PagedIntGrid(rows, columns, initialValue);
+	}
+
+	/**
+	 * A grid with every cell set to initialValue that clear() resets without touching the
+	 * cells, for grids that are reused for one dungeon after the other.
+	 */
+	static IntGrid createReusable(int rows, int columns, int initialValue) {
+		if ((long) rows * columns <= FLAT_LIMIT) return new StampedIntGrid(rows, columns, initialValue);
+		return new PagedIntGrid(rows, columns, initialValue);
+	}
+
+	abstract long index(int x, int y);
+
+	abstract int getAt(long index);
+
+	abstract void setAt(long index, int value);
+
+	/**
+	 * Atomically sets the cell at index to update if it currently holds expected.
+	 * @return true if this call changed the cell
+	 */
+	abstract boolean compareAndSetAt(long index, int expected, int update);
+
+	/** Sets every cell back to the initial value. Not safe while other threads use the grid. */
+	abstract void clear();
+
+	/** Gives the cell at index memory now, if the grid allocates it on first write. */
+	void touch(long index) {
+	}
+
+	/** Number of cells that currently have memory behind them. */
+	abstract long allocatedCells();
+
+	/** Every index(x, y) of the grid is below this. */
+	abstract long indexLimit();
+
+	/** Can this grid hold a rows x columns dungeon? Cells outside it are simply never used. */
+	final boolean fits(int rows, int columns) {
+		return rows <= this.rows && columns <= this.columns;
+	}
+
+	final int get(int x, int y) {
+		return getAt(index(x, y));
+	}
+
+	final void set(int x, int y, int value) {
+		setAt(index(x, y), value);
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * ManaCache.java
+ * @version Parallel solution
+ *
+ * Mana values kept on disk between runs. The mana surface only depends on the seed, the
+ * dungeon limits, RESOLUTION and PRECISION, so a file for that key can hold every
+ * fixed-point value any earlier run computed. The file is memory-mapped: a run reads the
+ * values in place, computes the cells that are missing and leaves them in the file for the
+ * next run.
+ *
+ * Layout (little endian): a 64-byte header with the key, one int per cell (row by row),
+ * then a presence bitmap with one bit per cell. A value is written before its bit is set,
+ * so a set bit always means the value is there. Hunters write concurrently; the bits are
+ * set with an atomic or. Files are created sparse, so they only take disk space for the
+ * parts of the dungeon that were visited.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ManaCache implements AutoCloseable {
+
+	private static final long MAGIC = 0x4d414e4143414348L;    // "MANACACH"
+	private static final int FORMAT = 1;                      // bump when the mana function changes
+	private static final int HEADER_BYTES = 64;
+	private static final int SEGMENT_SHIFT = 30;              // the file is mapped in pieces of 1 GiB
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private static final VarHandle WORD = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final File file;
+	private final int columns;
+	private final long bitmapOffset;
+	private final MappedByteBuffer[] segments;
+	private final LongAdder added = new LongAdder();
+
+	private ManaCache(File file, int columns, long bitmapOffset, MappedByteBuffer[] segments) {
+		this.file = file;
+		this.columns = columns;
+		this.bitmapOffset = bitmapOffset;
+		this.segments = segments;
+	}
+
+	/**
+	 * The cache file in directory for the dungeon built from seed, created (or recreated, if
+	 * it does not belong to this key) when needed. Processes that open the same file share it.
+	 */
+	static ManaCache open(File directory, int seed, DungeonMapParallel dungeon) throws IOException {
+		int rows = dungeon.getRows(), columns = dungeon.getColumns();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create the mana cache directory " + directory + ".");
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC).putInt(FORMAT).putInt(seed)
+				.putDouble(dungeon.getXmin()).putDouble(dungeon.getXmax())
+				.putDouble(dungeon.getYmin()).putDouble(dungeon.getYmax())
+				.putInt(DungeonMapParallel.RESOLUTION).putInt(DungeonMapParallel.PRECISION)
+				.putInt(rows).putInt(columns);
+		header.clear();
+		String name = String.format("mana-%d-%08x.cache", seed, header.hashCode());
+		File file = new File(directory, name);
+
+		long cells = (long) rows * columns;
+		long bitmapOffset = HEADER_BYTES + ((cells * Integer.BYTES + 7) & ~7L);
+		long length = bitmapOffset + ((cells + 63) >>> 6) * Long.BYTES;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			FileLock lock = channel.lock();    // no other process may truncate the file while this one checks it
+			try {
+				ByteBuffer existing = ByteBuffer.allocate(HEADER_BYTES);
+				boolean matches = raf.length() == length && channel.read(existing, 0) == HEADER_BYTES
+						&& existing.flip().equals(header);
+				if (!matches) {
+					raf.setLength(0);              // someone else's file, or a broken one: start afresh
+					raf.setLength(length);
+					channel.write(header.duplicate(), 0);
+				}
+				MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+				for (int s = 0; s < segments.length; s++) {
+					long start = (long) s << SEGMENT_SHIFT;
+					segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(length - start, 1L << SEGMENT_SHIFT));
+					segments[s].order(ByteOrder.LITTLE_ENDIAN);
+				}
+				return new ManaCache(file, columns, bitmapOffset, segments);
+			} finally {
+				lock.release();
+			}
+		}
+	}
+
+	/** Is the value of cell (x, y) in the cache? */
+	boolean contains(int x, int y) {
+		long cell = (long) x * columns + y;
+		long offset = bitmapOffset + (cell >>> 6) * Long.BYTES;
+		long word = (long) WORD.getAcquire(segments[(int) (offset >>> SEGMENT_SHIFT)], (int) (offset & SEGMENT_MASK));
+		return (word & (1L << cell)) != 0;
+	}
+
+	/** The cached value of cell (x, y); only valid if contains(x, y). */
+	int get(int x, int y) {
+		long offset = HEADER_BYTES + ((long) x * columns + y) * Integer.BYTES;
+		return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+	}
+
+	/** Stores the value of cell (x, y). Storing a cell twice is harmless, the value is the same. */
+	void put(int x, int y, int value) {
+		long cell = (long) x * columns + y;
+		long offset = HEADER_BYTES + cell * Integer.BYTES;
+		segments[(int) (offset >>> SEGMENT_SHIFT)].putInt((int) (offset & SEGMENT_MASK), value);
+		offset = bitmapOffset + (cell >>> 6) * Long.BYTES;
+		long bit = 1L << cell;
+		long old = (long) WORD.getAndBitwiseOrRelease(segments[(int) (offset >>> SEGMENT_SHIFT)], (int) (offset & SEGMENT_MASK), bit);
+		if ((old & bit) == 0) added.increment();
+	}
+
+	/** Number of cells this run added to the file. */
+	long added() {
+		return added.sum();
+	}
+
+	File file() {
+		return file;
+	}
+
+	/** Writes the new cells back to the file. */
+	@Override
+	public void close() {
+		for (MappedByteBuffer segment : segments) segment.force();
+	}
+}
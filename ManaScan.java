@@ -0,0 +1,136 @@
+/**
+ * ManaScan.java
+ * @version Parallel solution
+ *
+ * The ground truth of a dungeon (--truth): every cell is evaluated, without storing anything
+ * in the mana map, and the scan keeps only the highest peaks. The dungeon is cut into tiles
+ * of TILE x TILE cells that the workers take from a shared counter; a worker computes the
+ * mana of its tile and a one-cell border into a scratch array of its own, with the same
+ * fixed-point formula as getManaLevel, then keeps the cells that no neighbour beats (the
+ * cells a climb stops on) if they are among the top highest it has seen. The workers' lists
+ * are merged at the end. Memory is one scratch tile per worker, whatever the dungeon size;
+ * the borders cost about 3% more evaluations than the cells themselves.
+ *
+ * The highest peak is the true maximum, ties going to the first cell in row order.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ManaScan {
+
+	static final int TILE = 128;        // tile side in cells
+	private static final int SCRATCH = TILE + 2;
+
+	/** A cell with no higher neighbour. */
+	static final class Peak {
+		final int x, y, mana;
+
+		Peak(int x, int y, int mana) {
+			this.x = x;
+			this.y = y;
+			this.mana = mana;
+		}
+	}
+
+	/** What a scan found. */
+	static final class Result {
+		final List<Peak> peaks;      // highest first, at most the number asked for
+		final long cells;            // cells scanned
+		final long nanos;
+
+		Result(List<Peak> peaks, long cells, long nanos) {
+			this.peaks = peaks;
+			this.cells = cells;
+			this.nanos = nanos;
+		}
+
+		/** The true maximum of the dungeon. */
+		int max() {
+			return peaks.get(0).mana;
+		}
+	}
+
+	private final DungeonMapParallel dungeon;
+	private final int top;
+	private final int rows, columns, tileColumns, tiles;
+	private final Comparator<Peak> order;   // highest first, then row order
+	private final AtomicInteger next = new AtomicInteger();
+
+	private ManaScan(DungeonMapParallel dungeon, int top) {
+		this.dungeon = dungeon;
+		this.top = top;
+		this.rows = dungeon.getRows();
+		this.columns = dungeon.getColumns();
+		this.tileColumns = (columns + TILE - 1) / TILE;
+		long count = (long) ((rows + TILE - 1) / TILE) * tileColumns;
+		if (count > Integer.MAX_VALUE) throw new IllegalArgumentException("The dungeon has too many tiles to scan.");
+		this.tiles = (int) count;
+		this.order = Comparator.comparingInt((Peak p) -> p.mana).reversed().thenComparingInt(p -> p.x).thenComparingInt(p -> p.y);
+	}
+
+	/**
+	 * Evaluates every cell of dungeon on backend and returns its top highest peaks.
+	 * Leaves the mana map, the visit bits and the evaluated count of dungeon as they are.
+	 */
+	static Result scan(DungeonMapParallel dungeon, int top, ExecutionBackend backend) {
+		if (top <= 0) throw new IllegalArgumentException("--truth must list at least one peak.");
+		ManaScan scan = new ManaScan(dungeon, top);
+		long start = System.nanoTime();
+		List<Callable<PriorityQueue<Peak>>> workers = new ArrayList<>();
+		for (int w = 0; w < backend.parallelism(); w++) workers.add(scan::work);
+		List<Peak> peaks = new ArrayList<>();
+		for (PriorityQueue<Peak> found : backend.invokeAll(workers)) peaks.addAll(found);
+		peaks.sort(scan.order);
+		if (peaks.size() > top) peaks = new ArrayList<>(peaks.subList(0, top));
+		return new Result(peaks, (long) scan.rows * scan.columns, System.nanoTime() - start);
+	}
+
+	// scans tiles until there are none left; returns the top highest peaks of this worker, lowest first
+	private PriorityQueue<Peak> work() {
+		int[] scratch = new int[SCRATCH * SCRATCH];
+		PriorityQueue<Peak> best = new PriorityQueue<>(top + 1, order.reversed());
+		for (int t; (t = next.getAndIncrement()) < tiles; ) {
+			int x0 = (t / tileColumns) * TILE, y0 = (t % tileColumns) * TILE;
+			int x1 = Math.min(rows, x0 + TILE), y1 = Math.min(columns, y0 + TILE);
+			for (int x = x0 - 1; x <= x1; x++) {
+				int row = (x - x0 + 1) * SCRATCH - y0 + 1;
+				boolean inside = x >= 0 && x < rows;
+				for (int y = y0 - 1; y <= y1; y++) {
+					scratch[row + y] = inside && y >= 0 && y < columns ? dungeon.scanMana(x, y) : Integer.MIN_VALUE;
+				}
+			}
+			for (int x = x0; x < x1; x++) {
+				for (int y = y0; y < y1; y++) {
+					int at = (x - x0 + 1) * SCRATCH + (y - y0 + 1);
+					int mana = scratch[at];
+					if (best.size() == top && mana < best.peek().mana) continue;   // most cells stop here
+					if (!isPeak(scratch, at, mana)) continue;
+					Peak peak = new Peak(x, y, mana);
+					if (best.size() < top) {
+						best.add(peak);
+					} else if (order.compare(peak, best.peek()) < 0) {
+						best.poll();
+						best.add(peak);
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	// no neighbour of the scratch cell at is higher, as in DungeonMapParallel.climbStep
+	private static boolean isPeak(int[] scratch, int at, int mana) {
+		for (int i = 0; i < DungeonMapParallel.dirX.length; i++) {
+			if (scratch[at + DungeonMapParallel.dirX[i] * SCRATCH + DungeonMapParallel.dirY[i]] > mana) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * PagedIntGrid.java
+ * @version Parallel solution
+ *
+ * An IntGrid for very large dungeons. The grid is cut into 32x32 pages (4x4 blocks inside,
+ * like TiledIntGrid) and a page only gets memory the first time one of its cells is written.
+ * Reading a cell of a missing page gives the initial value. Pages are installed with a
+ * compare-and-set, so hunters can write concurrently; the loser of a race drops its page
+ * and uses the winner's.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PagedIntGrid extends IntGrid {
+
+	static final int PAGE_SHIFT = 5;                    // 32x32 cells per page
+	static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	static final int PAGE_MASK = PAGE_SIZE - 1;
+	static final int PAGE_CELLS = PAGE_SIZE * PAGE_SIZE;
+	private static final int CELL_BITS = 2 * PAGE_SHIFT;
+
+	private static final VarHandle PAGE = MethodHandles.arrayElementVarHandle(int[][].class);
+	private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final int pagesY;          // number of pages along a row of pages
+	private final int[][] pages;
+	private final int initialValue;
+	private final LongAdder allocatedPages = new LongAdder();
+
+	public PagedIntGrid(int rows, int columns, int initialValue) {
+		super(rows, columns);
+		long pagesX = (rows + (long) PAGE_MASK) >> PAGE_SHIFT;
+		this.pagesY = (int) ((columns + (long) PAGE_MASK) >> PAGE_SHIFT);
+		long pageCount = pagesX * pagesY;
+		if (pageCount > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Grid of " + rows + "x" + columns + " has too many pages.");
+		}
+		this.pages = new int[(int) pageCount][];
+		this.initialValue = initialValue;
+	}
+
+	@Override
+	final long index(int x, int y) {
+		long page = (long) (x >> PAGE_SHIFT) * pagesY + (y >> PAGE_SHIFT);
+		int lx = x & PAGE_MASK;
+		int ly = y & PAGE_MASK;
+		int block = ((lx >> 2) << (PAGE_SHIFT - 2)) | (ly >> 2);
+		return (page << CELL_BITS) | (block << 4) | ((lx & 3) << 2) | (ly & 3);
+	}
+
+	@Override
+	final int getAt(long index) {
+		int[] page = (int[]) PAGE.getAcquire(pages, (int) (index >>> CELL_BITS));
+		return page == null ? initialValue : page[(int) index & (PAGE_CELLS - 1)];
+	}
+
+	@Override
+	final void setAt(long index, int value) {
+		pageFor(index)[(int) index & (PAGE_CELLS - 1)] = value;
+	}
+
+	@Override
+	final boolean compareAndSetAt(long index, int expected, int update) {
+		int[] page = (int[]) PAGE.getAcquire(pages, (int) (index >>> CELL_BITS));
+		if (page == null) {
+			if (expected != initialValue) return false; // a missing page only holds initial values
+			page = pageFor(index);
+		}
+		return CELL.compareAndSet(page, (int) index & (PAGE_CELLS - 1), expected, update);
+	}
+
+	/** Drops every page, so the memory follows the next dungeon's hunters again. */
+	@Override
+	void clear() {
+		Arrays.fill(pages, null);
+		allocatedPages.reset();
+	}
+
+	@Override
+	void touch(long index) {
+		pageFor(index);
+	}
+
+	@Override
+	long allocatedCells() {
+		return allocatedPages.sum() * PAGE_CELLS;
+	}
+
+	// the page holding index, installing a fresh one if nobody has written to it yet
+	private int[] pageFor(long index) {
+		int p = (int) (index >>> CELL_BITS);
+		int[] page = (int[]) PAGE.getAcquire(pages, p);
+		if (page != null) return page;
+		int[] fresh = new int[PAGE_CELLS];
+		Arrays.fill(fresh, initialValue);
+		int[] winner = (int[]) PAGE.compareAndExchange(pages, p, (int[]) null, fresh);
+		if (winner != null) return winner;
+		allocatedPages.increment();
+		return fresh;
+	}
+
+	@Override
+	long indexLimit() {
+		return (long) pages.length << CELL_BITS;
+	}
+}
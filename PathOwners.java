@@ -0,0 +1,70 @@
+/**
+ * PathOwners.java
+ * @version Parallel solution
+ *
+ * Who claimed what (--owners), kept next to the visit bits only when asked for: the bits do
+ * not hold hunter ids (see VisitBits). The id of the claiming hunter goes into an IntGrid
+ * of its own, written once per cell by the hunter that won the claim, so the claims need no
+ * more synchronisation than the visit bits already give them; on large dungeons the grid
+ * is paged, so only the parts the hunters reach take memory. owner(x, y) answers for any
+ * cell of any path. The last cell every hunter claimed, the end of its path, is kept as
+ * well, a long per hunter, for the file the run writes.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class PathOwners {
+
+	static final long NONE = -1;
+	private static final int NOBODY = 0;   // hunter ids start at 1
+
+	private final int columns;
+	private final IntGrid owners;          // per cell, the id of the hunter that claimed it
+	private final long[] ends;             // per hunter id, the cell number x * columns + y of its last claim
+
+	/** Room for path ends of hunter ids up to hunters on a rows x columns dungeon; every claim gets an owner. */
+	PathOwners(int hunters, int rows, int columns) {
+		this.columns = columns;
+		this.owners = IntGrid.create(rows, columns, NOBODY);
+		this.ends = new long[hunters + 1];
+		Arrays.fill(ends, NONE);
+	}
+
+	/** Hunter id claimed (x, y). Only called by hunter id itself, once per cell. */
+	void claim(int id, int x, int y) {
+		owners.set(x, y, id);
+		if (id >= 0 && id < ends.length) ends[id] = (long) x * columns + y;
+	}
+
+	/** The hunter that claimed (x, y), -1 if no hunter did. */
+	int owner(int x, int y) {
+		int id = owners.get(x, y);
+		return id == NOBODY ? -1 : id;
+	}
+
+	/** The last cell hunter id claimed as {x, y}, null if it claimed none. */
+	int[] end(int id) {
+		if (id < 0 || id >= ends.length || ends[id] == NONE) return null;
+		return new int[] {(int) (ends[id] / columns), (int) (ends[id] % columns)};
+	}
+
+	/** Writes the end of every path as CSV: hunter, grid cell and dungeon coordinates, in hunter order. */
+	void write(String file, DungeonMapParallel dungeon) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("hunter,row,column,x,y");
+			for (int id = 0; id < ends.length; id++) {
+				int[] end = end(id);
+				if (end == null) continue;
+				out.printf(Locale.ROOT, "%d,%d,%d,%.1f,%.1f\n", id, end[0], end[1], dungeon.getXcoord(end[0]),
+						dungeon.getYcoord(end[1]));
+			}
+		}
+	}
+}
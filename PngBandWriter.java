@@ -0,0 +1,211 @@
+/**
+ * PngBandWriter.java
+ * @version Parallel solution
+ *
+ * Writes palette (8-bit indexed) PNG files straight from scanlines, without building an
+ * image in memory. The image is cut into bands of scanlines; bands are filled and
+ * deflated in parallel and written in order, each band as one IDAT chunk. Every band is
+ * compressed on its own and ended with a sync flush, so the compressed bands can simply be
+ * stitched together into one zlib stream (the way pigz does it); the Adler-32 checksums
+ * of the bands are combined for the zlib trailer.
+ * At most inFlight bands are held at any time, so memory stays bounded for any image size.
+ *
+ * Several images of the same size can be written in one pass: the scanline source fills
+ * one row of every image at a time.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public class PngBandWriter {
+
+	/** Fills one scanline of every image. */
+	interface Scanlines {
+		/**
+		 * @param imageRow the scanline, 0 is the top of the image
+		 * @param pixels   one array per image, write the palette indices of the scanline from offset on
+		 * @param offset   first byte of the scanline in every array
+		 */
+		void fill(int imageRow, byte[][] pixels, int offset);
+	}
+
+	private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	private static final int ADLER_BASE = 65521;
+
+	private final int width, height;
+	private final byte[] palette;          // 3 bytes (r, g, b) per entry
+	private final int bandRows, inFlight;
+
+	PngBandWriter(int width, int height, byte[] palette, int bandRows, int inFlight) {
+		this.width = width;
+		this.height = height;
+		this.palette = palette;
+		this.bandRows = Math.max(1, bandRows);
+		this.inFlight = Math.max(1, inFlight);
+	}
+
+	/**
+	 * Writes one PNG file per entry of files, with the scanlines from source.
+	 */
+	void write(String[] files, Scanlines source, ExecutorService executor) throws IOException {
+		int images = files.length;
+		DataOutputStream[] out = new DataOutputStream[images];
+		try {
+			for (int i = 0; i < images; i++) {
+				out[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[i]), 1 << 16));
+				out[i].write(SIGNATURE);
+				writeChunk(out[i], "IHDR", header());
+				writeChunk(out[i], "PLTE", palette);
+			}
+
+			int bands = (height + bandRows - 1) / bandRows;
+			long[] adler = new long[images];
+			for (int i = 0; i < images; i++) adler[i] = 1;   // Adler-32 of no data
+			ArrayDeque<Future<Band>> pending = new ArrayDeque<>();
+			int submitted = 0;
+			for (int written = 0; written < bands; written++) {
+				while (submitted < bands && pending.size() < inFlight) {
+					final int band = submitted++;
+					pending.add(executor.submit(() -> compress(band, band == bands - 1, images, source)));
+				}
+				Band band = take(pending);
+				for (int i = 0; i < images; i++) {
+					adler[i] = combineAdler(adler[i], band.adler[i], band.rawLength);
+					byte[] data = band.data[i];
+					if (written == 0) data = concat(new byte[] {0x78, (byte) 0x9c}, data);    // zlib header
+					if (written == bands - 1) data = concat(data, bigEndian((int) adler[i]));  // zlib trailer
+					writeChunk(out[i], "IDAT", data);
+				}
+			}
+			for (int i = 0; i < images; i++) writeChunk(out[i], "IEND", new byte[0]);
+		} finally {
+			for (DataOutputStream stream : out) {
+				if (stream != null) stream.close();
+			}
+		}
+	}
+
+	private static final class Band {
+		final byte[][] data;
+		final long[] adler;
+		final long rawLength;
+
+		Band(byte[][] data, long[] adler, long rawLength) {
+			this.data = data;
+			this.adler = adler;
+			this.rawLength = rawLength;
+		}
+	}
+
+	// fills the scanlines of one band (every scanline starts with filter type 0) and deflates them
+	private Band compress(int band, boolean last, int images, Scanlines source) {
+		int first = band * bandRows;
+		int count = Math.min(bandRows, height - first);
+		int stride = width + 1;
+		byte[][] raw = new byte[images][count * stride];
+		for (int r = 0; r < count; r++) source.fill(first + r, raw, r * stride + 1);
+
+		byte[][] data = new byte[images][];
+		long[] adler = new long[images];
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			for (int i = 0; i < images; i++) {
+				Adler32 checksum = new Adler32();
+				checksum.update(raw[i]);
+				adler[i] = checksum.getValue();
+				deflater.reset();
+				deflater.setInput(raw[i]);
+				if (last) deflater.finish();
+				data[i] = drain(deflater, last, raw[i].length);
+			}
+		} finally {
+			deflater.end();
+		}
+		return new Band(data, adler, (long) count * stride);
+	}
+
+	// deflates everything the deflater was given; a sync flush leaves the stream open for the next band
+	private static byte[] drain(Deflater deflater, boolean last, int inputLength) {
+		byte[] buffer = new byte[Math.max(64, inputLength / 4)];
+		int length = 0;
+		while (true) {
+			length += last ? deflater.deflate(buffer, length, buffer.length - length)
+					: deflater.deflate(buffer, length, buffer.length - length, Deflater.SYNC_FLUSH);
+			if (last ? deflater.finished() : length < buffer.length) break;
+			if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		return Arrays.copyOf(buffer, length);
+	}
+
+	private static Band take(ArrayDeque<Future<Band>> pending) throws IOException {
+		try {
+			return pending.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the image.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Could not encode the image.", e.getCause());
+		}
+	}
+
+	/** Adler-32 of two pieces of data, from the checksums of the pieces (as zlib's adler32_combine). */
+	static long combineAdler(long adler1, long adler2, long length2) {
+		long rem = length2 % ADLER_BASE;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (rem * sum1) % ADLER_BASE;
+		sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+		sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + ADLER_BASE - rem;
+		if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+		if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+		if (sum2 >= (ADLER_BASE << 1)) sum2 -= (ADLER_BASE << 1);
+		if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+		return sum1 | (sum2 << 16);
+	}
+
+	private byte[] header() {
+		byte[] ihdr = new byte[13];
+		System.arraycopy(bigEndian(width), 0, ihdr, 0, 4);
+		System.arraycopy(bigEndian(height), 0, ihdr, 4, 4);
+		ihdr[8] = 8;     // bit depth
+		ihdr[9] = 3;     // colour type: palette
+		ihdr[10] = 0;    // deflate
+		ihdr[11] = 0;    // adaptive filtering, every scanline uses filter 0
+		ihdr[12] = 0;    // no interlace
+		return ihdr;
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+		byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(name);
+		crc.update(data);
+		out.writeInt(data.length);
+		out.write(name);
+		out.write(data);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private static byte[] bigEndian(int value) {
+		return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] joined = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, joined, a.length, b.length);
+		return joined;
+	}
+}
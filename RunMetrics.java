@@ -0,0 +1,198 @@
+/**
+ * RunMetrics.java
+ * @version Parallel solution
+ *
+ * Where the wall time of a run goes: nanosecond timings of the phases (map init, launch,
+ * hunt, reduce, image write), the worker (and region) loads of the hunt (see WorkerLoads) and one record
+ * per hunter. Printed as phase timings and a step-length histogram, and written to a report:
+ * JSON with everything, or CSV with one row per hunter.
+ * Every phase is also a JFR event (see HuntEvents).
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RunMetrics {
+
+	enum Phase {
+		MAP_INIT("mapInit"), LAUNCH("launch"), HUNT("hunt"), REDUCE("reduce"), IMAGE("image");
+
+		final String key;
+
+		Phase(String key) {
+			this.key = key;
+		}
+	}
+
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private final Map<String, Object> run = new LinkedHashMap<>();
+	private final WorkerLoads loads;      // null when worker load is not recorded
+
+	RunMetrics(WorkerLoads loads) {
+		this.loads = loads;
+	}
+
+	WorkerLoads loads() {
+		return loads;
+	}
+
+	/** Start of a phase, pass it to end. */
+	long start() {
+		return System.nanoTime();
+	}
+
+	void end(Phase phase, long start) {
+		long nanos = System.nanoTime() - start;
+		phaseNanos[phase.ordinal()] += nanos;
+		HuntEvents.phase(phase.key, nanos);
+	}
+
+	long nanos(Phase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/** Adds a value (a number or a string) to the description of the run in the report. */
+	void describe(String key, Object value) {
+		run.put(key, value);
+	}
+
+	void printPhases() {
+		System.out.println("\t phases:");
+		for (Phase phase : Phase.values()) {
+			System.out.printf("\t   %-8s %10.3f ms\n", phase.key, nanos(phase) / 1e6);
+		}
+	}
+
+	/** Prints the number of hunts per step-length bucket, with a bar scaled to the largest bucket. */
+	void printHistogram() {
+		if (loads == null) return;
+		long[] histogram = loads.stepHistogram();
+		long largest = 1;
+		for (long count : histogram) largest = Math.max(largest, count);
+		System.out.println("\t steps per hunt:");
+		for (int b = 0; b < histogram.length; b++) {
+			if (histogram[b] == 0) continue;
+			int bar = (int) Math.ceil(40.0 * histogram[b] / largest);
+			System.out.printf("\t   %10s %10d %s\n", bucketName(b), histogram[b], "#".repeat(bar));
+		}
+	}
+
+	private static long bucketLow(int b) {
+		return b == 0 ? 0 : 1L << (b - 1);
+	}
+
+	private static long bucketHigh(int b) {
+		return b == 0 ? 0 : (1L << b) - 1;
+	}
+
+	private static String bucketName(int b) {
+		return bucketLow(b) == bucketHigh(b) ? Long.toString(bucketLow(b)) : bucketLow(b) + "-" + bucketHigh(b);
+	}
+
+	/**
+	 * Writes the report to file: CSV with one row per hunter if the name ends in .csv, JSON otherwise.
+	 */
+	void write(String file, HuntParallel[] searches) throws IOException {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+			if (file.endsWith(".csv")) writeCsv(out, searches);
+			else writeJson(out, searches);
+			if (out.checkError()) throw new IOException("Could not write " + file + ".");
+		}
+	}
+
+	private static void writeCsv(PrintWriter out, HuntParallel[] searches) {
+		out.println("id,row,column,steps,evaluated,stopped");
+		for (HuntParallel search : searches) {
+			out.printf("%d,%d,%d,%d,%d,%b\n", search.getID(), search.getPosRow(), search.getPosCol(),
+					search.getSteps(), search.getEvaluated(), search.isStopped());
+		}
+	}
+
+	private void writeJson(PrintWriter out, HuntParallel[] searches) {
+		out.println("{");
+		out.print("  \"run\": {");
+		String separator = "";
+		for (Map.Entry<String, Object> entry : run.entrySet()) {
+			out.print(separator + "\"" + entry.getKey() + "\": " + jsonValue(entry.getValue()));
+			separator = ", ";
+		}
+		out.println("},");
+
+		out.print("  \"phaseNanos\": {");
+		separator = "";
+		for (Phase phase : Phase.values()) {
+			out.print(separator + "\"" + phase.key + "\": " + nanos(phase));
+			separator = ", ";
+		}
+		out.println("},");
+
+		out.println("  \"workers\": [");
+		separator = "";
+		if (loads != null) {
+			for (WorkerLoads.Load load : loads.loads()) {
+				out.print(separator);
+				out.printf("    {\"thread\": %s, \"hunters\": %d, \"steps\": %d, \"evaluated\": %d, \"stopped\": %d, \"busyNanos\": %d}",
+						jsonValue(load.thread), load.hunters, load.steps, load.evaluated, load.collisions, load.busyNanos);
+				separator = ",\n";
+			}
+			out.println();
+		}
+		out.println("  ],");
+
+		out.println("  \"regions\": [");
+		separator = "";
+		if (loads != null && !loads.regions().isEmpty()) {
+			for (WorkerLoads.RegionLoad region : loads.regions()) {
+				out.print(separator);
+				out.printf("    {\"rowFrom\": %d, \"rowTo\": %d, \"hunters\": %d, \"steps\": %d, \"handedIn\": %d, \"handedOut\": %d, \"mailboxFull\": %d, \"busyNanos\": %d}",
+						region.rowFrom, region.rowTo, region.hunters, region.steps, region.handedIn, region.handedOut,
+						region.overflowed, region.busyNanos);
+				separator = ",\n";
+			}
+			out.println();
+		}
+		out.println("  ],");
+
+		out.println("  \"stepHistogram\": [");
+		separator = "";
+		if (loads != null) {
+			long[] histogram = loads.stepHistogram();
+			for (int b = 0; b < histogram.length; b++) {
+				if (histogram[b] == 0) continue;
+				out.print(separator);
+				out.printf("    {\"minSteps\": %d, \"maxSteps\": %d, \"hunters\": %d}", bucketLow(b), bucketHigh(b), histogram[b]);
+				separator = ",\n";
+			}
+			out.println();
+		}
+		out.println("  ],");
+
+		out.println("  \"hunters\": [");
+		for (int i = 0; i < searches.length; i++) {
+			HuntParallel search = searches[i];
+			out.printf("    {\"id\": %d, \"row\": %d, \"column\": %d, \"steps\": %d, \"evaluated\": %d, \"stopped\": %b}%s\n",
+					search.getID(), search.getPosRow(), search.getPosCol(), search.getSteps(),
+					search.getEvaluated(), search.isStopped(), i == searches.length - 1 ? "" : ",");
+		}
+		out.println("  ]");
+		out.println("}");
+	}
+
+	private static String jsonValue(Object value) {
+		if (value instanceof Number || value instanceof Boolean) return value.toString();
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : String.valueOf(value).toCharArray()) {
+			if (c == '"' || c == '\\') quoted.append('\\').append(c);
+			else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+			else quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+}
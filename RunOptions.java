@@ -0,0 +1,258 @@
+/**
+ * RunOptions.java
+ * @version Parallel solution
+ *
+ * Command line of DungeonHunterParallel: the three required arguments
+ *   <gridSize> <numSearchesMultiplier> <randomSeed>
+ * followed by optional flags of the form --name=value (or just --name for switches).
+ * With --batch the three arguments are left out; every job of the batch brings its own.
+ * The same goes for --worker, which gets its dungeon from the coordinator.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RunOptions {
+
+	// every flag the program understands, so that a typo is an error instead of being ignored
+	private static final Set<String> FLAGS = new HashSet<>(Arrays.asList(
+			"backend", "scheduler", "workers", "worker-stats", "launch", "metrics", "batch", "processes", "worker", "token", "mana-cache",
+			"strategy", "stride", "candidates", "compare", "chains", "sweeps", "truth",
+			"tune", "cutoffs", "basins", "owners"));
+
+	final int gateSize;
+	final double multiplier;
+	final int randomSeed;
+	private final Map<String, String> flags;
+
+	// the settings of a run, read from the flags by command(); the jobs of a batch leave them as they are
+	int numSearches;
+	String scheduler = "adaptive", launch = "spatial";
+	int workers;               // 0 for one per thread of the backend
+	boolean workerStats;
+	String metricsFile;
+	String batchFile;
+	int processes, workerPort;
+	long workerToken;
+	String workerBackend;
+	String manaCacheDir;
+	SearchStrategy[] strategies;   // one, or the strategies to compare
+	int truth;                 // peaks of the ground truth to list, 0 without --truth
+	boolean tune;
+	String cutoffsFile;
+	String basinsFile;
+	String ownersFile;
+	String backend = "forkjoin";
+
+	private RunOptions(int gateSize, double multiplier, int randomSeed, Map<String, String> flags) {
+		this.gateSize = gateSize;
+		this.multiplier = multiplier;
+		this.randomSeed = randomSeed;
+		this.flags = flags;
+	}
+
+	/**
+	 * Reads the command line.
+	 * @throws NumberFormatException if one of the required arguments is not a number
+	 * @throws IllegalArgumentException if the arguments are wrong in any other way
+	 */
+	static RunOptions parse(String[] args) {
+		List<String> positional = new ArrayList<>();
+		Map<String, String> flags = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				positional.add(arg);
+				continue;
+			}
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+			if (!FLAGS.contains(name)) throw new IllegalArgumentException("Unknown option --" + name + ".");
+			flags.put(name, eq < 0 ? "true" : arg.substring(eq + 1));
+		}
+		if (positional.isEmpty() && (flags.containsKey("batch") || flags.containsKey("worker"))) {
+			return new RunOptions(0, 0, 0, flags);   // the jobs come from the batch file or the coordinator
+		}
+		if (positional.size() != 3) {
+			throw new IllegalArgumentException("Incorrect number of command line arguments provided.");
+		}
+
+		int gateSize = Integer.parseInt(positional.get(0));
+		if (gateSize <= 0) {
+			throw new IllegalArgumentException("Grid size must be greater than 0.");
+		}
+		double multiplier = Double.parseDouble(positional.get(1));
+		int randomSeed = Integer.parseInt(positional.get(2));
+		if (randomSeed < 0) {
+			throw new IllegalArgumentException("Random seed must be non-negative.");
+		}
+		return new RunOptions(gateSize, multiplier, randomSeed, flags);
+	}
+
+	/**
+	 * Reads the command line of a run and checks its flags, and how they combine.
+	 * @throws NumberFormatException if one of the required arguments is not a number
+	 * @throws IllegalArgumentException if the arguments are wrong in any other way
+	 */
+	static RunOptions command(String[] args) {
+		RunOptions options = parse(args);
+		options.settle();
+		return options;
+	}
+
+	private void settle() {
+		numSearches = (int) (multiplier * (gateSize * 2.0) * (gateSize * 2.0) * DungeonMapParallel.RESOLUTION);
+		scheduler = getChoice("scheduler", scheduler, "adaptive", "recursive", "regions");
+		launch = getChoice("launch", launch, "spatial", "random", "stream");
+		workers = getInt("workers", 0);
+		if (has("workers") && workers <= 0) {
+			throw new IllegalArgumentException("--workers must be greater than 0.");
+		}
+		metricsFile = get("metrics", null);
+		if ("true".equals(metricsFile)) metricsFile = "metrics.json";   // --metrics on its own
+		if (metricsFile != null && metricsFile.isEmpty()) {
+			throw new IllegalArgumentException("--metrics needs a file name.");
+		}
+		workerStats = has("worker-stats");
+		batchFile = get("batch", null);
+		if ("true".equals(batchFile)) batchFile = "-";   // --batch on its own reads standard input
+		if (batchFile != null && (workerStats || metricsFile != null)) {
+			throw new IllegalArgumentException("--worker-stats and --metrics only apply to single runs.");
+		}
+		processes = getInt("processes", 0);
+		if (has("processes") && processes <= 0) {
+			throw new IllegalArgumentException("--processes must be greater than 0.");
+		}
+		if (processes > 0 && (batchFile != null || workerStats || metricsFile != null || !scheduler.equals("adaptive"))) {
+			throw new IllegalArgumentException("--processes cannot be combined with --batch, --worker-stats, --metrics or the recursive or regions scheduler.");
+		}
+		// the workers share the machine unless they are told otherwise
+		workerBackend = get("backend", "forkjoin:" + Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, processes)));
+		workerPort = getInt("worker", 0);
+		if (workerPort > 0) {
+			try {
+				workerToken = Long.parseUnsignedLong(get("token", ""), 16);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("--worker needs the --token its coordinator gave it.");
+			}
+		}
+		if (batchFile == null && workerPort == 0 && numSearches <= 0) {   // the jobs of a batch are checked one by one
+			throw new IllegalArgumentException("The multiplier gives no searches for this grid size.");
+		}
+		manaCacheDir = get("mana-cache", null);
+		if ("true".equals(manaCacheDir)) manaCacheDir = "mana-cache";   // --mana-cache on its own
+		if (manaCacheDir != null && manaCacheDir.isEmpty()) {
+			throw new IllegalArgumentException("--mana-cache needs a directory.");
+		}
+		String[] names = {getChoice("strategy", "climb", SearchStrategy.NAMES)};
+		if (has("compare")) {
+			names = getChoices("compare", "climb,coarse", SearchStrategy.NAMES);
+			if (names.length < 2) throw new IllegalArgumentException("--compare needs at least two strategies.");
+			if (has("strategy")) throw new IllegalArgumentException("--compare already names the strategies.");
+		}
+		strategies = new SearchStrategy[names.length];
+		for (int s = 0; s < names.length; s++) strategies[s] = SearchStrategy.parse(names[s], this);
+		if (strategies.length > 1 && (workerStats || metricsFile != null)) {
+			throw new IllegalArgumentException("--worker-stats and --metrics cannot be combined with --compare.");
+		}
+		if (processes > 0 && (strategies.length > 1 || !names[0].equals("climb"))) {
+			throw new IllegalArgumentException("--processes only runs the climb strategy.");
+		}
+		if (scheduler.equals("regions")) {
+			for (String name : names) {   // annealing and tempering chains jump across the strips
+				if (!name.equals("climb") && !name.equals("coarse")) {
+					throw new IllegalArgumentException("--scheduler=regions only confines the climbs of the climb and coarse strategies.");
+				}
+			}
+		}
+		if (launch.equals("stream")) {
+			for (String name : names) {
+				if (!name.equals("climb")) throw new IllegalArgumentException("--launch=stream only runs the climb strategy.");
+			}
+			if (metricsFile != null || processes > 0 || !scheduler.equals("adaptive")) {
+				throw new IllegalArgumentException("--launch=stream keeps no searches for --metrics, --processes or the recursive or regions scheduler.");
+			}
+		}
+		truth = "true".equals(get("truth", null)) ? 1 : getInt("truth", 0);   // --truth on its own lists one
+		if (has("truth") && truth <= 0) {
+			throw new IllegalArgumentException("--truth must list at least one peak.");
+		}
+		tune = has("tune");
+		if (tune && (batchFile != null || strategies.length > 1 || processes > 0 || workerPort > 0)) {
+			throw new IllegalArgumentException("--tune runs on its own, for the dungeon size of a single job.");
+		}
+		cutoffsFile = get("cutoffs", "cutoffs.properties");
+		if (cutoffsFile.isEmpty() || cutoffsFile.equals("true")) {
+			throw new IllegalArgumentException("--cutoffs needs a file name.");
+		}
+		basinsFile = get("basins", null);
+		if ("true".equals(basinsFile)) basinsFile = "basins.csv";   // --basins on its own
+		if (basinsFile != null && basinsFile.isEmpty()) {
+			throw new IllegalArgumentException("--basins needs a file name.");
+		}
+		if (basinsFile != null && (batchFile != null || strategies.length > 1 || processes > 0 || tune)) {
+			throw new IllegalArgumentException("--basins only applies to single runs in one process.");
+		}
+		if (basinsFile != null && !names[0].equals("climb") && !names[0].equals("coarse")) {
+			throw new IllegalArgumentException("--basins only follows the climbs of the climb and coarse strategies.");
+		}
+		ownersFile = get("owners", null);
+		if ("true".equals(ownersFile)) ownersFile = "owners.csv";   // --owners on its own
+		if (ownersFile != null && ownersFile.isEmpty()) {
+			throw new IllegalArgumentException("--owners needs a file name.");
+		}
+		if (ownersFile != null && (batchFile != null || strategies.length > 1 || processes > 0 || tune)) {
+			throw new IllegalArgumentException("--owners only applies to single runs in one process.");
+		}
+		backend = get("backend", backend);
+	}
+
+	boolean has(String name) {
+		return flags.containsKey(name);
+	}
+
+	String get(String name, String defaultValue) {
+		return flags.getOrDefault(name, defaultValue);
+	}
+
+	int getInt(String name, int defaultValue) {
+		String value = flags.get(name);
+		if (value == null) return defaultValue;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("--" + name + " must be a whole number.");
+		}
+	}
+
+	/** The value of a flag that must be one of choices. */
+	String getChoice(String name, String defaultValue, String... choices) {
+		String value = get(name, defaultValue);
+		if (!Arrays.asList(choices).contains(value)) {
+			throw new IllegalArgumentException("--" + name + " must be one of " + String.join(", ", choices) + ".");
+		}
+		return value;
+	}
+
+	/**
+	 * The comma-separated values of a flag, each of which must be one of choices;
+	 * defaultValue if the flag is given on its own.
+	 */
+	String[] getChoices(String name, String defaultValue, String... choices) {
+		String list = get(name, defaultValue);
+		String[] values = (list.equals("true") ? defaultValue : list).split(",");
+		for (String value : values) {
+			if (!Arrays.asList(choices).contains(value)) {
+				throw new IllegalArgumentException("--" + name + " takes a list of " + String.join(", ", choices) + ".");
+			}
+		}
+		return values;
+	}
+}
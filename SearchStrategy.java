@@ -0,0 +1,111 @@
+/**
+ * SearchStrategy.java
+ * @version Parallel solution
+ *
+ * How a hunt looks for the Dungeon Master, chosen with --strategy:
+ *   climb    steepest-ascent hunters from random start cells (HuntParallel), the default
+ *   coarse   a climb on a coarsened map first, then full-resolution climbs near its peaks (HuntCoarse)
+ *   anneal   independent simulated-annealing chains (HuntAnnealing)
+ *   temper   parallel tempering: ladders of chains at different temperatures that swap
+ *            states between rounds (HuntTempering)
+ * Every strategy works with searches (HuntParallel or a subclass) that the hunt driver runs
+ * on the workers, and they all read and fill the same manaMap of the dungeon.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public interface SearchStrategy {
+
+	String[] NAMES = {"climb", "coarse", "anneal", "temper"};
+
+	String name();
+
+	/** The searches of a hunt of numSearches on dungeon, drawing from rand. */
+	HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon, HuntDriver driver);
+
+	/** Runs the searches made by launch; the finder index of the result is into searches. */
+	default DungeonHunterParallel.SearchResult hunt(HuntParallel[] searches, HuntDriver driver) {
+		return driver.run(searches);
+	}
+
+	/** Number of searches the last hunt ran; more than searches.length when they are made on the fly. */
+	default int hunted(HuntParallel[] searches) {
+		return searches.length;
+	}
+
+	/** Lines about the last hunt for the report of a single run, or null. */
+	default String report(HuntParallel[] searches) {
+		return null;
+	}
+
+	/** Does launch already search (so its time belongs to the hunt)? */
+	default boolean searchesInLaunch() {
+		return false;
+	}
+
+	/**
+	 * The strategy called name, with its settings from options.
+	 * @throws IllegalArgumentException if there is no such strategy or a setting is wrong
+	 */
+	static SearchStrategy parse(String name, RunOptions options) {
+		switch (name) {
+			case "climb":
+				return new Climb();
+			case "coarse":
+				return new HuntCoarse(options.getInt("stride", HuntCoarse.DEFAULT_STRIDE),
+						options.getInt("candidates", HuntCoarse.DEFAULT_CANDIDATES));
+			case "anneal":
+				return new HuntAnnealing(options.getInt("chains", 0), options.getInt("sweeps", HuntAnnealing.DEFAULT_SWEEPS));
+			case "temper":
+				return new HuntTempering(options.getInt("chains", 0), options.getInt("sweeps", HuntTempering.DEFAULT_SWEEPS));
+			default:
+				throw new IllegalArgumentException("--strategy must be one of " + String.join(", ", NAMES) + ".");
+		}
+	}
+
+	/**
+	 * The original hunt: one climbing search per distinct start cell. With --launch=stream
+	 * the searches are made by the workers (HuntStream) and launch only returns the slot
+	 * the finder is put in.
+	 */
+	final class Climb implements SearchStrategy {
+
+		private HuntStream stream;      // the last hunt, when streamed
+
+		@Override
+		public String name() {
+			return "climb";
+		}
+
+		@Override
+		public HuntParallel[] launch(Random rand, int numSearches, DungeonMapParallel dungeon, HuntDriver driver) {
+			if (!driver.launch.equals("stream")) {
+				stream = null;
+				return driver.launch(rand, numSearches, dungeon);
+			}
+			stream = new HuntStream(rand.nextLong(), numSearches, dungeon);
+			return new HuntParallel[1];
+		}
+
+		@Override
+		public DungeonHunterParallel.SearchResult hunt(HuntParallel[] searches, HuntDriver driver) {
+			if (stream == null) return driver.run(searches);
+			searches[0] = stream.run(driver.backend, driver.workers, driver.loads);
+			return new DungeonHunterParallel.SearchResult(searches[0].getPower(), 0);
+		}
+
+		@Override
+		public int hunted(HuntParallel[] searches) {
+			return stream != null ? stream.size() : searches.length;
+		}
+
+		@Override
+		public String report(HuntParallel[] searches) {
+			if (stream == null) return null;
+			return String.format("\t Streamed hunters: %d, start cells drawn by the workers\n", stream.size());
+		}
+	}
+}
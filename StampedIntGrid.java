@@ -0,0 +1,105 @@
+/**
+ * StampedIntGrid.java
+ * @version Parallel solution
+ *
+ * An IntGrid that can be cleared in O(1), for running many dungeons one after the other
+ * on the same grids. Same tiled layout as TiledIntGrid, and every tile carries the
+ * generation it was last written in, the way VisitBits stamps its blocks: a tile of an
+ * older generation reads as the initial value, and the first write to it fills its cells
+ * with the initial value and stamps it. clear() just starts a new generation. The stamps
+ * cost an int per tile of 4096 cells on top of the cells.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+public class StampedIntGrid extends IntGrid {
+
+	private static final int TILE_BITS = 2 * TiledIntGrid.TILE_SHIFT;   // an index >> TILE_BITS is its tile
+	private static final int CLEARING = -1;                               // the stamp of a tile being filled
+
+	private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+	private static final VarHandle STAMP = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final int tilesY;          // number of tiles along a row of tiles
+	private final int[] cells;
+	private final int[] stamps;        // generation of every tile
+	private final int initialValue;
+	private int generation = 1;        // a new array is all generation 0, so every tile starts out stale
+
+	public StampedIntGrid(int rows, int columns, int initialValue) {
+		super(rows, columns);
+		int tilesX = (rows + TiledIntGrid.TILE_MASK) >> TiledIntGrid.TILE_SHIFT;
+		this.tilesY = (columns + TiledIntGrid.TILE_MASK) >> TiledIntGrid.TILE_SHIFT;
+		long size = (long) tilesX * tilesY * TiledIntGrid.TILE_CELLS;
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Grid of " + rows + "x" + columns + " is too large for a flat array.");
+		}
+		this.cells = new int[(int) size];
+		this.stamps = new int[tilesX * tilesY];
+		this.initialValue = initialValue;
+	}
+
+	@Override
+	final long index(int x, int y) {
+		int tile = (x >> TiledIntGrid.TILE_SHIFT) * tilesY + (y >> TiledIntGrid.TILE_SHIFT);
+		return (tile << TILE_BITS)
+				| TiledIntGrid.offsetInTile(x & TiledIntGrid.TILE_MASK, y & TiledIntGrid.TILE_MASK);
+	}
+
+	@Override
+	final int getAt(long index) {
+		if ((int) STAMP.getAcquire(stamps, (int) (index >>> TILE_BITS)) != generation) return initialValue;
+		return cells[(int) index];
+	}
+
+	@Override
+	final void setAt(long index, int value) {
+		renew((int) (index >>> TILE_BITS));
+		cells[(int) index] = value;
+	}
+
+	@Override
+	final boolean compareAndSetAt(long index, int expected, int update) {
+		renew((int) (index >>> TILE_BITS));
+		return CELL.compareAndSet(cells, (int) index, expected, update);
+	}
+
+	/** Starts a new generation; only resets the stamps when the generation counter wraps around. */
+	@Override
+	void clear() {
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	// brings tile into this generation, filling its cells if it was last written in an older one
+	private void renew(int tile) {
+		while (true) {
+			int stamp = (int) STAMP.getAcquire(stamps, tile);
+			if (stamp == generation) return;
+			if (stamp != CLEARING && STAMP.compareAndSet(stamps, tile, stamp, CLEARING)) {
+				Arrays.fill(cells, tile << TILE_BITS, (tile + 1) << TILE_BITS, initialValue);
+				STAMP.setRelease(stamps, tile, generation);
+				return;
+			}
+			Thread.onSpinWait();   // another thread is filling the tile
+		}
+	}
+
+	@Override
+	long allocatedCells() {
+		return cells.length;
+	}
+
+	@Override
+	long indexLimit() {
+		return cells.length;
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * VisitBits.java
+ * @version Parallel solution
+ *
+ * The visit state of the dungeon: one bit per cell, set when a hunter claims the cell.
+ * A cell is addressed by the index its mana grid gives it (IntGrid.index), so the bits of
+ * a neighbourhood share words the same way the mana values share cache lines, and one
+ * index lookup serves both. Bits are set with an atomic or, so only one hunter claims a cell.
+ *
+ * The bits of a paged mana grid are paged the same way (a page of bits per page of cells,
+ * allocated on first write); otherwise they are one flat array, 1/32 of an int grid.
+ * Flat bits that are reused for dungeon after dungeon (DungeonMapParallel.Grids) are
+ * cleared in O(1), like StampedIntGrid: every block of BLOCK_WORDS words carries the
+ * generation it was last written in, a block of an older generation reads as empty, and the
+ * first hunter to set a bit in it zeroes its words and stamps it. clear() just starts a new
+ * generation.
+ * The id of the hunter that claimed a cell is not kept: every hunter knows where its own
+ * path ended (HuntParallel), which is all the reports use, and --owners keeps the ids in
+ * a grid next to the bits (PathOwners).
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class VisitBits {
+
+	private static final int PAGE_SHIFT = 2 * PagedIntGrid.PAGE_SHIFT;   // the bits of one page of PagedIntGrid
+	private static final int PAGE_WORDS = (1 << PAGE_SHIFT) >> 6;
+	private static final int BLOCK_SHIFT = 4;                              // 16 words, the bits of 1024 cells, per stamp
+	private static final int BLOCK_WORDS = 1 << BLOCK_SHIFT;
+	private static final int CLEARING = -1;                                // the stamp of a block being zeroed
+
+	private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle PAGE = MethodHandles.arrayElementVarHandle(long[][].class);
+	private static final VarHandle STAMP = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final long[] words;        // flat bits, null when paged
+	private final long[][] pages;      // paged bits, null when flat
+	private final int[] stamps;        // generation of every block of flat words, null unless they are reused
+	private int generation;            // a new array is all generation 0
+	private final LongAdder allocatedPages = new LongAdder();
+
+	/** Bits for every index of grid, paged if the grid is. */
+	VisitBits(IntGrid grid) {
+		this(grid, false);
+	}
+
+	/** @param reusable clear flat bits by starting a new generation rather than zeroing them */
+	VisitBits(IntGrid grid, boolean reusable) {
+		long size = grid.indexLimit();
+		if (grid instanceof PagedIntGrid) {
+			this.words = null;
+			this.pages = new long[(int) ((size + (1L << PAGE_SHIFT) - 1) >>> PAGE_SHIFT)][];
+			this.stamps = null;
+		} else {
+			this.words = new long[(int) ((size + 63) >>> 6)];
+			this.pages = null;
+			this.stamps = reusable ? new int[(words.length + BLOCK_WORDS - 1) >> BLOCK_SHIFT] : null;
+		}
+	}
+
+	boolean get(long index) {
+		if (words != null) {
+			int word = (int) (index >>> 6);
+			if (stamps != null && (int) STAMP.getAcquire(stamps, word >> BLOCK_SHIFT) != generation) return false;
+			return ((long) WORD.getAcquire(words, word) & (1L << index)) != 0;
+		}
+		long[] page = (long[]) PAGE.getAcquire(pages, (int) (index >>> PAGE_SHIFT));
+		return page != null && ((long) WORD.getAcquire(page, (int) (index >>> 6) & (PAGE_WORDS - 1)) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Atomically sets the bit of index.
+	 * @return true if this call set it, false if it was set already
+	 */
+	boolean set(long index) {
+		long bit = 1L << index;
+		long old;
+		if (words != null) {
+			int word = (int) (index >>> 6);
+			if (stamps != null) renew(word >> BLOCK_SHIFT);
+			old = (long) WORD.getAndBitwiseOr(words, word, bit);
+		} else {
+			old = (long) WORD.getAndBitwiseOr(pageFor(index), (int) (index >>> 6) & (PAGE_WORDS - 1), bit);
+		}
+		return (old & bit) == 0;
+	}
+
+	/**
+	 * Clears every bit: starts a new generation of reusable flat bits, fills other flat words
+	 * (1/64 of the cells), or drops the pages. Not safe during a hunt.
+	 */
+	void clear() {
+		if (stamps != null) {
+			generation++;
+			if (generation == Integer.MAX_VALUE) {   // wrapping around: start again from a clean array
+				Arrays.fill(words, 0L);
+				Arrays.fill(stamps, 0);
+				generation = 0;
+			}
+		} else if (words != null) {
+			Arrays.fill(words, 0L);
+		} else {
+			Arrays.fill(pages, null);
+			allocatedPages.reset();
+		}
+	}
+
+	/** Gives the bit of index memory now, if the bits are paged. */
+	void touch(long index) {
+		if (pages != null) pageFor(index);
+	}
+
+	/** Number of cells whose bit currently has memory behind it. */
+	long allocatedCells() {
+		return words != null ? (long) words.length << 6 : allocatedPages.sum() << PAGE_SHIFT;
+	}
+
+	// brings block into this generation, zeroing its words if it was last written in an older one
+	private void renew(int block) {
+		while (true) {
+			int stamp = (int) STAMP.getAcquire(stamps, block);
+			if (stamp == generation) return;
+			if (stamp != CLEARING && STAMP.compareAndSet(stamps, block, stamp, CLEARING)) {
+				Arrays.fill(words, block << BLOCK_SHIFT, Math.min(words.length, (block + 1) << BLOCK_SHIFT), 0L);
+				STAMP.setRelease(stamps, block, generation);
+				return;
+			}
+			Thread.onSpinWait();   // another hunter is zeroing the block
+		}
+	}
+
+	// the page holding index, installing a fresh one if nobody has set a bit in it yet
+	private long[] pageFor(long index) {
+		int p = (int) (index >>> PAGE_SHIFT);
+		long[] page = (long[]) PAGE.getAcquire(pages, p);
+		if (page != null) return page;
+		long[] fresh = new long[PAGE_WORDS];
+		long[] winner = (long[]) PAGE.compareAndExchange(pages, p, (long[]) null, fresh);
+		if (winner != null) return winner;
+		allocatedPages.increment();
+		return fresh;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * WorkerLoads.java
+ * @version Parallel solution
+ *
+ * How much of the hunt each worker thread did: hunters run, steps taken, cells evaluated,
+ * hunters stopped on another hunter's path and time spent hunting, plus a histogram of the
+ * step lengths, and for a region-owned hunt what the owner of every strip did. Every thread
+ * writes only its own counters, so recording needs no synchronisation; read the totals
+ * after the workers have been joined.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class WorkerLoads {
+
+	// bucket b of the step histogram holds the hunts of 2^(b-1) to 2^b - 1 steps, bucket 0 the hunts of no steps
+	static final int HISTOGRAM_BUCKETS = 33;
+
+	static final class Load {
+		final String thread;
+		long hunters, steps, evaluated, collisions, busyNanos;
+		final long[] stepHistogram = new long[HISTOGRAM_BUCKETS];
+
+		Load(String thread) {
+			this.thread = thread;
+		}
+	}
+
+	/** What the owner of one strip did in a region-owned hunt (see HuntRegions). */
+	static final class RegionLoad {
+		final int rowFrom, rowTo;
+		long hunters, steps, handedIn, handedOut, overflowed, busyNanos;
+
+		RegionLoad(int rowFrom, int rowTo) {
+			this.rowFrom = rowFrom;
+			this.rowTo = rowTo;
+		}
+	}
+
+	private final ConcurrentLinkedQueue<Load> all = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<Load> local = ThreadLocal.withInitial(this::register);
+	private final List<RegionLoad> regions = new ArrayList<>();   // summed over the region-owned hunts of the run
+
+	private Load register() {
+		Load load = new Load(Thread.currentThread().getName());
+		all.add(load);
+		return load;
+	}
+
+	/** Adds the finished searches [start, end), hunted by the calling thread in busyNanos. */
+	void record(HuntParallel[] searches, int start, int end, long busyNanos) {
+		Load load = local.get();
+		for (int i = start; i < end; i++) add(load, searches[i]);
+		load.hunters += end - start;
+		load.busyNanos += busyNanos;
+	}
+
+	/** Adds one finished search of the calling thread, for hunters that are not kept in an array (see HuntStream). */
+	void record(HuntParallel search) {
+		Load load = local.get();
+		add(load, search);
+		load.hunters++;
+	}
+
+	/** Adds busyNanos of hunting to the calling thread. */
+	void busy(long busyNanos) {
+		local.get().busyNanos += busyNanos;
+	}
+
+	/** Adds the regions of a region-owned hunt, after its workers have been joined. */
+	synchronized void record(RegionLoad[] hunt) {
+		for (RegionLoad load : hunt) {
+			RegionLoad total = null;
+			for (RegionLoad region : regions) {
+				if (region.rowFrom == load.rowFrom && region.rowTo == load.rowTo) total = region;
+			}
+			if (total == null) {
+				total = new RegionLoad(load.rowFrom, load.rowTo);
+				regions.add(total);
+			}
+			total.hunters += load.hunters;
+			total.steps += load.steps;
+			total.handedIn += load.handedIn;
+			total.handedOut += load.handedOut;
+			total.overflowed += load.overflowed;
+			total.busyNanos += load.busyNanos;
+		}
+	}
+
+	private static void add(Load load, HuntParallel search) {
+		load.steps += search.getSteps();
+		load.evaluated += search.getEvaluated();
+		if (search.isStopped()) load.collisions++;
+		load.stepHistogram[bucket(search.getSteps())]++;
+	}
+
+	static int bucket(int steps) {
+		return 32 - Integer.numberOfLeadingZeros(steps);
+	}
+
+	List<Load> loads() {
+		return new ArrayList<>(all);
+	}
+
+	synchronized List<RegionLoad> regions() {
+		return new ArrayList<>(regions);
+	}
+
+	/** The step histogram of all workers together. */
+	long[] stepHistogram() {
+		long[] histogram = new long[HISTOGRAM_BUCKETS];
+		for (Load load : all) {
+			for (int b = 0; b < HISTOGRAM_BUCKETS; b++) histogram[b] += load.stepHistogram[b];
+		}
+		return histogram;
+	}
+
+	/** Prints one line per worker, with its busy time as a share of the wall time of the stage. */
+	void print(long wallNanos) {
+		System.out.println("\t worker load:");
+		for (Load load : all) {
+			System.out.printf("\t   %-32s hunters: %8d  steps: %10d  evaluated: %10d  stopped on a path: %8d  busy: %6.1f ms (%3.0f%%)\n",
+					load.thread, load.hunters, load.steps, load.evaluated, load.collisions, load.busyNanos / 1e6,
+					100.0 * load.busyNanos / Math.max(1, wallNanos));
+		}
+		List<RegionLoad> owned = regions();
+		if (owned.isEmpty()) return;
+		System.out.println("\t region load:");
+		for (RegionLoad region : owned) {
+			System.out.printf("\t   rows %6d-%-6d  hunters finished: %8d  steps: %10d  (%7.0f per ms busy)  handed in: %7d  out: %7d  mailbox full: %5d  busy: %6.1f ms\n",
+					region.rowFrom, region.rowTo - 1, region.hunters, region.steps, region.steps / Math.max(1e-3, region.busyNanos / 1e6),
+					region.handedIn, region.handedOut, region.overflowed, region.busyNanos / 1e6);
+		}
+	}
+}
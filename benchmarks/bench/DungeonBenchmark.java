@@ -0,0 +1,30 @@
+/**
+ * DungeonBenchmark.java
+ *
+ * Parameters shared by the dungeon benchmarks: gate size, search multiplier, number of
+ * threads and the random seed, with the same meaning as the DungeonHunterParallel arguments.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public abstract class DungeonBenchmark {
+
+	@Param({"50", "200"})
+	public int gateSize;
+
+	@Param({"0.1"})
+	public double multiplier;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	@Param({"42"})
+	public int seed;
+}
@@ -0,0 +1,81 @@
+/**
+ * HuntBenchmark.java
+ *
+ * Whole hunts on a fresh dungeon: every search run one after the other with
+ * HuntParallel.findManaPeak, and the recursive HuntTask on a pool of threads workers
+ * with the sequential cutoff set to searches / (threads * blocksPerWorker).
+ * blocksPerWorker = 6 is the cutoff DungeonHunterParallel used for HuntTask.
+ * adaptiveScheduler runs the same hunt with HuntScheduler, which does not use the cutoff.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HuntBenchmark extends DungeonBenchmark {
+
+	@Param({"1", "6", "24"})
+	public int blocksPerWorker;
+
+	private AutoCloseable backend;
+	private ForkJoinPool pool;
+	private Object searches;
+
+	@Setup(Level.Trial)
+	public void startPool() {
+		backend = Dungeon.newBackend("forkjoin:" + threads);
+		pool = Dungeon.forkJoinPool(backend);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopPool() throws Exception {
+		backend.close();
+	}
+
+	// hunts mark the map as visited, so every run needs a fresh dungeon
+	@Setup(Level.Invocation)
+	public void freshDungeon() {
+		Object map = Dungeon.newMap(gateSize, seed);
+		searches = Dungeon.newHunters(map, gateSize, multiplier, seed);
+	}
+
+	@Benchmark
+	public int findManaPeak() {
+		int max = Integer.MIN_VALUE;
+		for (int i = 0, n = Array.getLength(searches); i < n; i++) {
+			max = Math.max(max, Dungeon.findManaPeak(Array.get(searches, i)));
+		}
+		return max;
+	}
+
+	@Benchmark
+	public Object huntTask() {
+		int threshold = Array.getLength(searches) / (threads * blocksPerWorker);
+		return Dungeon.hunt(pool, searches, threshold);
+	}
+
+	@Benchmark
+	public Object adaptiveScheduler() {
+		return Dungeon.huntAdaptive(backend, searches, threads);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * ManaBenchmark.java
+ *
+ * Per-cell cost of DungeonMapParallel.getManaLevel, getNextStepDirection and climbStep.
+ * evaluate measures cells that are not in the map yet, one whole 64x64 block per invocation
+ * (the cells past the last whole block of a row or column are never measured).
+ * lookup, nextStepDirection and climbStep run on a map that has been filled by a real hunt of
+ * multiplier * searches on threads workers, at the start cells of those searches.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManaBenchmark extends DungeonBenchmark {
+
+	private static final int BLOCK = 64;
+	private static final int PROBES = 1 << 16;
+
+	private Object freshMap;
+	private int blockColumns, blocks, nextBlock;
+
+	private Object huntedMap;
+	private int[] probeX, probeY;
+	private int probe;
+
+	@Setup(Level.Trial)
+	public void hunt() {
+		huntedMap = Dungeon.newMap(gateSize, seed);
+		Object searches = Dungeon.newHunters(huntedMap, gateSize, multiplier, seed);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Dungeon.hunt(pool, searches, 1);
+		pool.shutdown();
+
+		int rows = Dungeon.rows(huntedMap), columns = Dungeon.columns(huntedMap);
+		SplittableRandom rand = new SplittableRandom(seed);
+		probeX = new int[PROBES];
+		probeY = new int[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probeX[i] = rand.nextInt(rows);
+			probeY[i] = rand.nextInt(columns);
+			Dungeon.manaLevel(huntedMap, probeX[i], probeY[i]);
+		}
+	}
+
+	// a new map once all whole blocks of the current one have been evaluated
+	@Setup(Level.Invocation)
+	public void freshBlock() {
+		if (freshMap == null || nextBlock == blocks) {
+			freshMap = Dungeon.newMap(gateSize, seed);
+			blockColumns = Dungeon.columns(freshMap) / BLOCK;
+			blocks = (Dungeon.rows(freshMap) / BLOCK) * blockColumns;
+			if (blocks == 0) throw new IllegalStateException("gateSize " + gateSize + " is too small for a " + BLOCK + "x" + BLOCK + " block.");
+			nextBlock = 0;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BLOCK * BLOCK)
+	public int evaluate() {
+		int x0 = (nextBlock / blockColumns) * BLOCK, y0 = (nextBlock % blockColumns) * BLOCK;
+		nextBlock++;
+		int sum = 0;
+		for (int x = x0; x < x0 + BLOCK; x++) {
+			for (int y = y0; y < y0 + BLOCK; y++) {
+				sum += Dungeon.manaLevel(freshMap, x, y);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int lookup() {
+		int i = probe++ & (PROBES - 1);
+		return Dungeon.manaLevel(huntedMap, probeX[i], probeY[i]);
+	}
+
+	@Benchmark
+	public Object nextStepDirection() {
+		int i = probe++ & (PROBES - 1);
+		return Dungeon.nextStepDirection(huntedMap, probeX[i], probeY[i]);
+	}
+
+	@Benchmark
+	public long climbStep() {
+		int i = probe++ & (PROBES - 1);
+		return Dungeon.climbStep(huntedMap, probeX[i], probeY[i]);
+	}
+}
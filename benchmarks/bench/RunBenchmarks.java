@@ -0,0 +1,34 @@
+/**
+ * RunBenchmarks.java
+ *
+ * Entry point of benchmarks.jar. Runs JMH with the given options and writes the
+ * results as JSON to jmh-result.json, unless a result format or file is given.
+ *
+ * Usage:
+ *   java -jar target/benchmarks.jar [JMH options] [benchmark regexp]
+ *   e.g. java -jar target/benchmarks.jar HuntBenchmark -p gateSize=500 -p threads=32
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RunBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		List<String> options = new ArrayList<>(Arrays.asList(args));
+		if (!options.contains("-rf")) {
+			options.add(0, "json");
+			options.add(0, "-rf");
+		}
+		if (!options.contains("-rff")) {
+			options.add(0, "jmh-result.json");
+			options.add(0, "-rff");
+		}
+		org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+	}
+}
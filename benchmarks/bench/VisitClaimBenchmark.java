@@ -0,0 +1,121 @@
+/**
+ * VisitClaimBenchmark.java
+ *
+ * Throughput of claiming cells, one claim per operation on every JMH thread (all
+ * processors unless -t says otherwise). claim compares the old unsynchronised visit
+ * marking (check-then-set on a plain int array plus an int++ counter, "plain") with the
+ * compare-and-set on an int visit grid plus a LongAdder counter ("cas") and with the atomic
+ * or on a bitset that VisitBits uses now ("bits").
+ * Every thread walks its own random path of cells, the way hunters do, so the versions see
+ * the same mix of fresh and already visited cells; each iteration starts on an empty grid.
+ *
+ * Usage:
+ *   java -jar target/benchmarks.jar VisitClaimBenchmark -t 32
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisitClaimBenchmark {
+
+	private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+	private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+	@Param({"2000"})
+	public int size;
+
+	@Param({"plain", "cas", "bits"})
+	public String claim;
+
+	// shared state, fields so the JIT can't keep the counter in a register
+	private int[] visit;
+	private long[] bits;
+	private int plainCounter;
+	private LongAdder stripedCounter;
+
+	/** The random walk of one thread. */
+	@State(Scope.Thread)
+	public static class Walk {
+		SplittableRandom rand;
+		int id, cell;
+
+		@Setup(Level.Trial)
+		public void start(VisitClaimBenchmark grid, ThreadParams thread) {
+			id = thread.getThreadIndex();
+			rand = new SplittableRandom(id);
+			cell = rand.nextInt(grid.size * grid.size);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void emptyGrid() {
+		visit = new int[size * size];
+		Arrays.fill(visit, -1);
+		bits = new long[(size * size + 63) >>> 6];
+		plainCounter = 0;
+		stripedCounter = new LongAdder();
+	}
+
+	@Benchmark
+	public boolean claim(Walk walk) {
+		int cell = walk.cell;
+		boolean claimed;
+		switch (claim) {
+		case "plain":
+			claimed = visit[cell] == -1;
+			if (claimed) {
+				visit[cell] = walk.id;
+				plainCounter++;
+			}
+			break;
+		case "cas":
+			claimed = visit[cell] == -1 && CELL.compareAndSet(visit, cell, -1, walk.id);
+			if (claimed) stripedCounter.increment();
+			break;
+		default:
+			long bit = 1L << cell;
+			claimed = ((long) WORD.getAndBitwiseOr(bits, cell >>> 6, bit) & bit) == 0;
+			if (claimed) stripedCounter.increment();
+		}
+		walk.cell = nextCell(walk.rand, cell);
+		return claimed;
+	}
+
+	// random walk: mostly single steps, sometimes a jump to a new start like a new hunter
+	private int nextCell(SplittableRandom rand, int cell) {
+		if (rand.nextInt(16) == 0) return rand.nextInt(size * size);
+		int x = cell / size + rand.nextInt(3) - 1;
+		int y = cell % size + rand.nextInt(3) - 1;
+		if (x < 0 || x >= size || y < 0 || y >= size) return rand.nextInt(size * size);
+		return x * size + y;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * VisualiseBenchmark.java
+ *
+ * DungeonMapParallel.visualisePowerMap on the map left behind by a hunt,
+ * with and without the search path, on a forkjoin backend of threads workers.
+ * It runs the encoder underneath (encodePowerMaps), so no message is printed per image.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VisualiseBenchmark extends DungeonBenchmark {
+
+	@Param({"false", "true"})
+	public boolean path;
+
+	private AutoCloseable backend;
+	private Object map;
+	private File image;
+
+	@Setup(Level.Trial)
+	public void hunt() throws IOException {
+		backend = Dungeon.newBackend("forkjoin:" + threads);
+		map = Dungeon.newMap(gateSize, seed);
+		Dungeon.hunt(Dungeon.forkJoinPool(backend), Dungeon.newHunters(map, gateSize, multiplier, seed), 1);
+		image = File.createTempFile("visualise", ".png");
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanUp() throws Exception {
+		backend.close();
+		image.delete();
+	}
+
+	@Benchmark
+	public void visualisePowerMap() {
+		Dungeon.visualise(map, image.getPath(), path, backend);
+	}
+}
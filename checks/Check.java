@@ -0,0 +1,42 @@
+/**
+ * Check.java
+ * @version Parallel solution
+ *
+ * The little the regression checks (make check) need: a named check is a Runnable that
+ * throws an AssertionError on the first difference; run() runs them all and counts.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Objects;
+
+public class Check {
+
+	private Check() {}
+
+	/** Fails with what if expected and actual differ. */
+	static void equal(Object expected, Object actual, String what) {
+		if (!Objects.equals(expected, actual)) {
+			throw new AssertionError(what + ": expected " + expected + " but got " + actual);
+		}
+	}
+
+	/** Fails with what unless condition holds. */
+	static void that(boolean condition, String what) {
+		if (!condition) throw new AssertionError(what);
+	}
+
+	/** Runs every check, printing one line each; false if any failed. */
+	static boolean run(String name, Runnable check) {
+		long start = System.nanoTime();
+		try {
+			check.run();
+			System.out.printf("ok    %-40s %6d ms%n", name, (System.nanoTime() - start) / 1000000);
+			return true;
+		} catch (RuntimeException | AssertionError e) {
+			System.out.printf("FAIL  %-40s %s%n", name, e);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * GridCheck.java
+ * @version Parallel solution
+ *
+ * The reusable grid of batch mode (StampedIntGrid) against a plain int array, over many
+ * clears: every cell must read what was last written in the current generation and the
+ * initial value otherwise. Then several threads race to store cells of tiles written in an
+ * older generation, as hunters do after a clear: exactly one store must win every cell.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GridCheck {
+
+	private static final int ROWS = 150, COLUMNS = 200;   // partial tiles at both edges
+	private static final int INITIAL = Integer.MIN_VALUE;
+
+	static void run() {
+		generations();
+		races();
+	}
+
+	private static void generations() {
+		StampedIntGrid grid = new StampedIntGrid(ROWS, COLUMNS, INITIAL);
+		int[] model = new int[ROWS * COLUMNS];
+		Random rand = new Random(3);
+		for (int generation = 0; generation < 50; generation++) {
+			Arrays.fill(model, INITIAL);
+			for (int i = 0; i < 2000; i++) {
+				int x = rand.nextInt(ROWS), y = rand.nextInt(COLUMNS), value = rand.nextInt();
+				if (rand.nextBoolean()) {
+					grid.set(x, y, value);
+					model[x * COLUMNS + y] = value;
+				} else {
+					boolean stored = grid.compareAndSetAt(grid.index(x, y), INITIAL, value);
+					Check.equal(model[x * COLUMNS + y] == INITIAL, stored, "store into (" + x + ", " + y + ")");
+					if (stored) model[x * COLUMNS + y] = value;
+				}
+			}
+			for (int x = 0; x < ROWS; x++) {
+				for (int y = 0; y < COLUMNS; y++) {
+					Check.equal(model[x * COLUMNS + y], grid.get(x, y), "(" + x + ", " + y + ") in generation " + generation);
+				}
+			}
+			grid.clear();
+		}
+	}
+
+	private static void races() {
+		StampedIntGrid grid = new StampedIntGrid(ROWS, COLUMNS, INITIAL);
+		int threads = 4;
+		for (int round = 0; round < 20; round++) {
+			for (int x = 0; x < ROWS; x += 7) grid.set(x, x % COLUMNS, round);   // leaves data in some tiles
+			grid.clear();
+			AtomicInteger stored = new AtomicInteger();
+			Thread[] workers = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				final int id = t;
+				workers[t] = new Thread(() -> {
+					int won = 0;
+					for (int cell = 0; cell < ROWS * COLUMNS; cell++) {
+						int c = (cell + id * 997) % (ROWS * COLUMNS);   // every thread starts elsewhere
+						if (grid.compareAndSetAt(grid.index(c / COLUMNS, c % COLUMNS), INITIAL, id)) won++;
+					}
+					stored.addAndGet(won);
+				});
+				workers[t].start();
+			}
+			for (Thread worker : workers) {
+				try {
+					worker.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new AssertionError("interrupted", e);
+				}
+			}
+			Check.equal(ROWS * COLUMNS, stored.get(), "cells stored in round " + round);
+			for (int x = 0; x < ROWS; x++) {
+				for (int y = 0; y < COLUMNS; y++) {
+					int owner = grid.get(x, y);
+					Check.that(owner >= 0 && owner < threads, "(" + x + ", " + y + ") holds " + owner + " in round " + round);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * HuntCheck.java
+ * @version Parallel solution
+ *
+ * The climb of the program against the original sequential hunt (OriginalDungeon) on the
+ * same start cells, for a few seeds and dungeon sizes: every scheduler on the backends it
+ * runs on, with the original launch order, and the stream launch. The best mana, the cell
+ * it was found on and the number of grid points evaluated must be the same. Which hunter
+ * gets there first depends on the order the hunters run in, so the finder itself is only
+ * compared on the sequential backend, which runs them in the original order. There the
+ * owners of --owners must also be the ids the original visit grid holds, cell by cell.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public class HuntCheck {
+
+	// gate, multiplier and seed, as on the command line
+	static final Object[][] RUNS = {{20, 0.2, 42}, {50, 0.1, 7}, {100, 0.05, 3}};
+	static final String[] BACKENDS = {"sequential", "forkjoin:4", "threads:3"};
+	private static final String[] SCHEDULERS = {"adaptive", "recursive", "regions"};
+	private static final int WORKERS = 4;
+
+	static void run() {
+		for (Object[] run : RUNS) {
+			int gate = (Integer) run[0], seed = (Integer) run[2];
+			int searches = OriginalDungeon.searches(gate, (Double) run[1]);
+			for (String spec : BACKENDS) {
+				for (String scheduler : SCHEDULERS) {
+					if (!scheduler.equals("recursive") || spec.startsWith("forkjoin")) random(gate, searches, seed, spec, scheduler);
+				}
+				stream(gate, searches, seed, spec);
+			}
+			owners(gate, searches, seed);
+		}
+	}
+
+	// PathOwners against the hunter ids of the original visit grid
+	private static void owners(int gate, int searches, int seed) {
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		original.hunt(OriginalDungeon.randomStarts(seed, searches, original.rows, original.columns));
+		try (ExecutionBackend backend = ExecutionBackend.parse("sequential")) {
+			DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend);
+			PathOwners owners = new PathOwners(searches, dungeon.getRows(), dungeon.getColumns());
+			dungeon.useOwners(owners);
+			DungeonHunterParallel.runHunt(HuntLaunch.random(new Random(seed), searches, dungeon), "adaptive", WORKERS, null, backend);
+			for (int x = 0; x < original.rows; x++) {
+				for (int y = 0; y < original.columns; y++) {
+					Check.equal(original.visit[x][y], owners.owner(x, y),
+							"owner of (" + x + ", " + y + "), gate " + gate + ", seed " + seed);
+				}
+			}
+		}
+	}
+
+	// the original launch order through DungeonHunterParallel.runHunt
+	private static void random(int gate, int searches, int seed, String spec, String scheduler) {
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		OriginalDungeon.Result expected = original.hunt(
+				OriginalDungeon.randomStarts(seed, searches, original.rows, original.columns));
+		try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+			DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend,
+					scheduler.equals("regions") ? new DungeonMapParallel.Grids(true) : null);
+			HuntParallel[] hunters = HuntLaunch.random(new Random(seed), searches, dungeon);
+			DungeonHunterParallel.SearchResult result = DungeonHunterParallel.runHunt(hunters, scheduler, WORKERS, null, backend);
+			String what = scheduler + " on " + spec + ", gate " + gate + ", seed " + seed;
+			compare(expected, original, result.maxMana, hunters[result.finderIndex], dungeon, what);
+			if (spec.equals("sequential") && scheduler.equals("adaptive")) {
+				Check.equal(expected.finder, result.finderIndex, "finder of " + what);
+			}
+		}
+	}
+
+	// --launch=stream: the starts are drawn from the seed by HuntStream.draw
+	private static void stream(int gate, int searches, int seed, String spec) {
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		int[][] starts = new int[searches][];
+		for (int i = 0; i < searches; i++) {
+			long bits = HuntStream.draw(seed, i);
+			starts[i] = new int[] {HuntStream.scale(bits >>> 32, original.rows), HuntStream.scale(bits, original.columns)};
+		}
+		OriginalDungeon.Result expected = original.hunt(starts);
+		try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+			DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend);
+			HuntParallel finder = new HuntStream(seed, searches, dungeon).run(backend, WORKERS, null);
+			String what = "stream on " + spec + ", gate " + gate + ", seed " + seed;
+			compare(expected, original, finder.getPower(), finder, dungeon, what);
+			if (spec.equals("sequential")) Check.equal(expected.finder + 1, finder.getID(), "finder of " + what);
+		}
+	}
+
+	/** Fails unless the hunt on dungeon found what the original hunt found. */
+	static void compare(OriginalDungeon.Result expected, OriginalDungeon original, int max, HuntParallel finder,
+			DungeonMapParallel dungeon, String what) {
+		Check.equal(expected.max, max, "mana of " + what);
+		Check.equal(expected.row + "," + expected.column, finder.getPosRow() + "," + finder.getPosCol(),
+				"cell of the Dungeon Master of " + what);
+		Check.equal(original.evaluated, dungeon.getGridPointsEvaluated(), "grid points evaluated of " + what);
+	}
+}
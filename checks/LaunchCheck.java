@@ -0,0 +1,68 @@
+/**
+ * LaunchCheck.java
+ * @version Parallel solution
+ *
+ * The Z-order launch (HuntLaunch.spatial) against the original draw: the keys give back
+ * the row and column they were made from, the searches start on exactly the distinct cells
+ * the original launch drew, in increasing Z-order with ids 1, 2, ..., and hunting them
+ * finds what the original hunt finds on the original order, with as many grid points
+ * evaluated.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LaunchCheck {
+
+	static void run() {
+		keys();
+		for (Object[] run : HuntCheck.RUNS) {
+			int gate = (Integer) run[0], seed = (Integer) run[2];
+			int searches = OriginalDungeon.searches(gate, (Double) run[1]);
+			for (String spec : HuntCheck.BACKENDS) spatial(gate, searches, seed, spec);
+		}
+	}
+
+	private static void keys() {
+		Random rand = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			int row = i < 4 ? (i < 2 ? 0 : Integer.MAX_VALUE) : rand.nextInt(Integer.MAX_VALUE);
+			int column = i < 4 ? (i % 2 == 0 ? 0 : Integer.MAX_VALUE) : rand.nextInt(Integer.MAX_VALUE);
+			long key = HuntLaunch.zOrder(row, column);
+			Check.equal(row, HuntLaunch.row(key), "row of the key of (" + row + ", " + column + ")");
+			Check.equal(column, HuntLaunch.column(key), "column of the key of (" + row + ", " + column + ")");
+		}
+		// the curve visits a 2x2 block in the order (0,0) (0,1) (1,0) (1,1) before the next block
+		long[] block = {HuntLaunch.zOrder(0, 0), HuntLaunch.zOrder(0, 1), HuntLaunch.zOrder(1, 0), HuntLaunch.zOrder(1, 1),
+				HuntLaunch.zOrder(0, 2)};
+		for (int i = 0; i < block.length; i++) Check.equal((long) i, block[i], "Z-order key " + i);
+	}
+
+	private static void spatial(int gate, int searches, int seed, String spec) {
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		int[][] starts = OriginalDungeon.randomStarts(seed, searches, original.rows, original.columns);
+		Set<Long> drawn = new HashSet<>();
+		for (int[] start : starts) drawn.add(HuntLaunch.zOrder(start[0], start[1]));
+		OriginalDungeon.Result expected = original.hunt(starts);
+		String what = "spatial launch on " + spec + ", gate " + gate + ", seed " + seed;
+		try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+			DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend);
+			HuntParallel[] hunters = HuntLaunch.spatial(new Random(seed), searches, dungeon, backend);
+			Check.equal(drawn.size(), hunters.length, "distinct start cells of " + what);
+			long previous = -1;
+			for (int i = 0; i < hunters.length; i++) {
+				long key = HuntLaunch.zOrder(hunters[i].getPosRow(), hunters[i].getPosCol());
+				Check.that(key > previous, "start " + i + " of " + what + " is not after the one before it in Z-order");
+				Check.that(drawn.contains(key), "start " + i + " of " + what + " was not drawn");
+				Check.equal(i + 1, hunters[i].getID(), "id of start " + i + " of " + what);
+				previous = key;
+			}
+			DungeonHunterParallel.SearchResult result = DungeonHunterParallel.runHunt(hunters, "adaptive", 4, null, backend);
+			HuntCheck.compare(expected, original, result.maxMana, hunters[result.finderIndex], dungeon, what);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * MailboxCheck.java
+ * @version Parallel solution
+ *
+ * The mailbox the region owners hand searches over with (HuntRegions.Mailbox): it is full
+ * at its capacity and first in, first out across wrap-arounds; with several senders and
+ * one owner every search arrives exactly once, in the order each sender sent them. Then
+ * the regions scheduler, with many thin strips so most climbs are handed over, must find
+ * what the original hunt finds.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class MailboxCheck {
+
+	private static final int SENDERS = 4;
+	private static final int SENT = 200000;          // searches per sender
+	private static final long TIMEOUT_SECONDS = 60;
+
+	static void run() {
+		single();
+		concurrent();
+		for (String spec : new String[] {"forkjoin:2", "threads:16"}) thinStrips(spec);
+	}
+
+	private static void single() {
+		HuntRegions.Mailbox mailbox = new HuntRegions.Mailbox(8);
+		Check.that(mailbox.isEmpty(), "a new mailbox is empty");
+		int next = 0;
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 8; i++) Check.that(mailbox.offer(round * 8 + i), "offer " + i + " of round " + round);
+			Check.that(!mailbox.offer(-2), "a full mailbox takes another search");
+			for (int i = 0; i < 8; i++) Check.equal(next++, mailbox.poll(), "poll " + i + " of round " + round);
+			Check.that(mailbox.isEmpty(), "the mailbox is empty after round " + round);
+			Check.equal(-1, mailbox.poll(), "poll of an empty mailbox");
+			Check.that(mailbox.offer(-3) && mailbox.poll() == -3, "one search after round " + round);   // shifts the ring
+		}
+	}
+
+	private static void concurrent() {
+		HuntRegions.Mailbox mailbox = new HuntRegions.Mailbox(64);
+		Thread[] senders = new Thread[SENDERS];
+		for (int s = 0; s < SENDERS; s++) {
+			final int sender = s;
+			senders[s] = new Thread(() -> {
+				for (int i = 0; i < SENT; i++) {
+					while (!mailbox.offer(sender * SENT + i)) Thread.yield();
+				}
+			});
+			senders[s].setDaemon(true);
+			senders[s].start();
+		}
+		boolean[] received = new boolean[SENDERS * SENT];
+		int[] last = new int[SENDERS];
+		Arrays.fill(last, -1);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		for (int count = 0; count < received.length; ) {
+			int search = mailbox.poll();
+			if (search == -1) {
+				Check.that(System.nanoTime() < deadline, "only " + count + " searches arrived in " + TIMEOUT_SECONDS + " s");
+				Thread.yield();
+				continue;
+			}
+			Check.that(search >= 0 && search < received.length, "search " + search + " was never sent");
+			Check.that(!received[search], "search " + search + " arrived twice");
+			received[search] = true;
+			int sender = search / SENT;
+			Check.that(search % SENT > last[sender], "search " + search + " arrived after a later one of its sender");
+			last[sender] = search % SENT;
+			count++;
+		}
+		Check.that(mailbox.isEmpty(), "the mailbox is empty after every search arrived");
+	}
+
+	private static void thinStrips(String spec) {
+		for (Object[] run : HuntCheck.RUNS) {
+			int gate = (Integer) run[0], seed = (Integer) run[2];
+			int searches = OriginalDungeon.searches(gate, (Double) run[1]);
+			OriginalDungeon original = new OriginalDungeon(gate, seed);
+			OriginalDungeon.Result expected = original.hunt(
+					OriginalDungeon.randomStarts(seed, searches, original.rows, original.columns));
+			try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+				DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend,
+						new DungeonMapParallel.Grids(true));
+				HuntParallel[] hunters = HuntLaunch.random(new Random(seed), searches, dungeon);
+				DungeonHunterParallel.SearchResult result = DungeonHunterParallel.runHunt(hunters, "regions", 16, null, backend);
+				HuntCheck.compare(expected, original, result.maxMana, hunters[result.finderIndex], dungeon,
+						"16 regions on " + spec + ", gate " + gate + ", seed " + seed);
+			}
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * ManaFormulaCheck.java
+ * @version Parallel solution
+ *
+ * getManaLevel against the mana formula exactly as it was handed in (OriginalDungeon, from
+ * before the separable terms moved to lookup tables), over a range of seeds, dungeon sizes and cells: the fixed
+ * point values must be the same bit for bit. The coarsened maps of HuntCoarse are checked
+ * against the full map they sample.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Random;
+
+public class ManaFormulaCheck {
+
+	private static final int[] SEEDS = {1, 7, 42, 2025, 123456789};
+	private static final int[] GATES = {1, 20, 137};
+	private static final int SAMPLES = 20000;   // cells per dungeon beyond the ones on the border
+
+	static void run() {
+		for (int seed : SEEDS) {
+			for (int gate : GATES) check(seed, gate);
+		}
+	}
+
+	private static void check(int seed, int gate) {
+		DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed);
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		int rows = dungeon.getRows(), columns = dungeon.getColumns();
+		Check.equal(original.rows, rows, "rows of gate " + gate);
+		Check.equal(original.columns, columns, "columns of gate " + gate);
+		Random rand = new Random(seed);
+		for (int i = 0; i < SAMPLES + 2 * (rows + columns); i++) {
+			int x, y;
+			if (i < 2 * rows) {                      // the first and last column
+				x = i % rows;
+				y = i < rows ? 0 : columns - 1;
+			} else if (i < 2 * (rows + columns)) {   // the first and last row
+				int j = i - 2 * rows;
+				x = j < columns ? 0 : rows - 1;
+				y = j % columns;
+			} else {
+				x = rand.nextInt(rows);
+				y = rand.nextInt(columns);
+			}
+			Check.equal(original.mana(x, y), dungeon.getManaLevel(x, y),
+					"mana of (" + x + ", " + y + ") with seed " + seed + " and gate " + gate);
+		}
+		DungeonMapParallel coarse = dungeon.coarsened(3, ExecutionBackend.common());
+		for (int i = 0; i < 1000; i++) {
+			int x = rand.nextInt(coarse.getRows()), y = rand.nextInt(coarse.getColumns());
+			Check.equal(original.mana(3 * x, 3 * y), coarse.getManaLevel(x, y),
+					"coarse mana of (" + x + ", " + y + ") with seed " + seed + " and gate " + gate);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * OriginalDungeon.java
+ * @version Parallel solution
+ *
+ * The dungeon and the hunt as they were handed in, run sequentially: the boss drawn from
+ * the seed, the mana formula verbatim, int grids for the mana and the visits, and the
+ * original getManaLevel, getNextStepDirection and findManaPeak. The checks run the program
+ * and this on the same start cells and compare the maximum, where it was found and the
+ * number of grid points evaluated.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class OriginalDungeon {
+
+	private static final int STAY = -1;
+
+	final double xmin, xmax, ymin, ymax, bossX, bossY;
+	final int rows, columns;
+	final int[][] manaMap;
+	final int[][] visit;
+	long evaluated;
+
+	/** The hunt of one list of start cells: the best mana, the index of its hunter and where it stopped. */
+	static final class Result {
+		final int max, finder, row, column;
+
+		Result(int max, int finder, int row, int column) {
+			this.max = max;
+			this.finder = finder;
+			this.row = row;
+			this.column = column;
+		}
+	}
+
+	/** The dungeon of DungeonMapParallel(-gate, gate, -gate, gate, seed). */
+	OriginalDungeon(int gate, int seed) {
+		this(-gate, gate, -gate, gate, seed);
+	}
+
+	OriginalDungeon(double xmin, double xmax, double ymin, double ymax, int seed) {
+		this.xmin = xmin;
+		this.xmax = xmax;
+		this.ymin = ymin;
+		this.ymax = ymax;
+		this.rows = (int) Math.round((xmax-xmin)*DungeonMapParallel.RESOLUTION);
+		this.columns =  (int) Math.round((ymax-ymin)*DungeonMapParallel.RESOLUTION);
+		Random rand = new Random(seed);
+		double xRange = xmax - xmin;
+		this.bossX = xmin + (xRange) * rand.nextDouble();
+		this.bossY = ymin + (ymax - ymin) * rand.nextDouble();
+		this.manaMap = new int[rows][columns];
+		this.visit = new int[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			Arrays.fill(manaMap[i], Integer.MIN_VALUE);
+			Arrays.fill(visit[i], -1);
+		}
+	}
+
+	/** The number of searches of the command line gate, multiplier and seed. */
+	static int searches(int gate, double multiplier) {
+		return (int) (multiplier*(gate*2)*(gate*2)*DungeonMapParallel.RESOLUTION);
+	}
+
+	/** The start cells of the original launch: row then column from new Random(seed), for every search. */
+	static int[][] randomStarts(int seed, int searches, int rows, int columns) {
+		Random rand = new Random(seed);
+		int[][] starts = new int[searches][];
+		for (int i = 0; i < searches; i++) starts[i] = new int[] {rand.nextInt(rows), rand.nextInt(columns)};
+		return starts;
+	}
+
+	/** The mana of (x, y), without touching the grids. */
+	int mana(int x, int y) {
+		double x_coord = xmin + ( (xmax - xmin) / rows ) * x;
+		double y_coord = ymin + ( (ymax - ymin) / columns ) * y;
+		double dx = x_coord - bossX;
+		double dy = y_coord - bossY;
+		double distanceSquared = dx * dx + dy * dy;
+		double mana = (2 * Math.sin(x_coord + 0.1 * Math.sin(y_coord / 5.0) + Math.PI / 2) *
+                Math.cos((y_coord + 0.1 * Math.cos(x_coord / 5.0) + Math.PI / 2) / 2.0) +
+            0.7 * Math.sin((x_coord * 0.5) + (y_coord * 0.3) + 0.2 * Math.sin(x_coord / 6.0) + Math.PI / 2) +
+            0.3 * Math.sin((x_coord * 1.5) - (y_coord * 0.8) + 0.15 * Math.cos(y_coord / 4.0)) +
+            -0.2 * Math.log(Math.abs(y_coord - Math.PI * 2) + 0.1) +
+            0.5 * Math.sin((x_coord * y_coord) / 4.0 + 0.05 * Math.sin(x_coord)) +
+            1.5 * Math.cos((x_coord + y_coord) / 5.0 + 0.1 * Math.sin(y_coord)) +
+            3.0 * Math.exp(-0.03 * ((x_coord - bossX - 15) * (x_coord - bossX - 15) +
+                                    (y_coord - bossY + 10) * (y_coord - bossY + 10))) +
+            8.0 * Math.exp(-0.01 * distanceSquared) +
+            2.0 / (1.0 + 0.05 * distanceSquared));
+		return (int)( DungeonMapParallel.PRECISION * mana );
+	}
+
+	boolean visited(int x, int y) {
+		return visit[x][y] != -1;
+	}
+
+	int getManaLevel(int x, int y) {
+		if (visited(x,y)) return manaMap[x][y];
+		if (manaMap[x][y]>Integer.MIN_VALUE) return manaMap[x][y];
+		int fixedPoint = mana(x, y);
+		manaMap[x][y]=fixedPoint;
+		evaluated++;
+		return fixedPoint;
+	}
+
+	// the index into dirX/dirY of the climb, STAY on a local maximum
+	int getNextStepDirection(int x, int y) {
+		int climbDirection = STAY;
+		int localMax = getManaLevel(x, y);
+		for (int i = 0; i < DungeonMapParallel.dirX.length; i++) {
+			int newX = x + DungeonMapParallel.dirX[i];
+			int newY = y + DungeonMapParallel.dirY[i];
+			if (newX < 0 || newX >= rows || newY < 0 ||newY >= columns) continue;
+			int power = getManaLevel(newX, newY);
+			if (power > localMax) {
+				localMax = power;
+				climbDirection = i;
+				if (power == Integer.MAX_VALUE) break;
+			}
+		}
+		return climbDirection;
+	}
+
+	/** Hunts from every start cell in order, as the sequential leaves of HuntTask did: the first of equal maxima wins. */
+	Result hunt(int[][] starts) {
+		int max = Integer.MIN_VALUE, finder = -1, row = -1, column = -1;
+		for (int i = 0; i < starts.length; i++) {
+			int posRow = starts[i][0], posCol = starts[i][1];
+			int power = Integer.MIN_VALUE;
+			while (!visited(posRow, posCol)) {
+				power = getManaLevel(posRow, posCol);
+				visit[posRow][posCol] = i + 1;
+				int next = getNextStepDirection(posRow, posCol);
+				if (next == STAY) break;
+				posRow += DungeonMapParallel.dirX[next];
+				posCol += DungeonMapParallel.dirY[next];
+			}
+			if (power > max) {
+				max = power;
+				finder = i;
+				row = posRow;
+				column = posCol;
+			}
+		}
+		return new Result(max, finder, row, column);
+	}
+}
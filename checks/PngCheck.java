@@ -0,0 +1,311 @@
+/**
+ * PngCheck.java
+ * @version Parallel solution
+ *
+ * The banded PNG encoder (PngBandWriter) against a plain sequential one. Every file is
+ * taken apart again: the chunk CRCs must hold, the IDAT chunks must inflate as one zlib
+ * stream whose Adler-32 trailer matches the scanlines, and the scanlines must be the ones
+ * the source filled, for any band size and on any backend; the other chunks must be those
+ * of the sequential encoder. The same band size gives the same bytes on every backend.
+ * The power maps of a hunt are decoded with ImageIO and compared with the colours of the
+ * original visualisePowerMap, which the palette may miss by at most 2 per channel.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.imageio.ImageIO;
+
+public class PngCheck {
+
+	private static final int[] BAND_ROWS = {1, 7, 64, 1000};
+
+	static void run() {
+		try {
+			Path dir = Files.createTempDirectory("png-check");
+			try {
+				adler();
+				bands(dir);
+				powerMaps(dir);
+			} finally {
+				try (var files = Files.list(dir)) {
+					for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+				}
+				Files.delete(dir);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// combineAdler against the checksum of the whole, for splits of every kind
+	private static void adler() {
+		Random rand = new Random(5);
+		byte[] data = new byte[200000];
+		rand.nextBytes(data);
+		int[] splits = {0, 1, 65520, 65521, 65522, 131042, 100000, data.length};
+		for (int split : splits) {
+			Adler32 first = new Adler32(), second = new Adler32(), whole = new Adler32();
+			first.update(data, 0, split);
+			second.update(data, split, data.length - split);
+			whole.update(data);
+			Check.equal(whole.getValue(), PngBandWriter.combineAdler(first.getValue(), second.getValue(), data.length - split),
+					"Adler-32 combined at " + split);
+		}
+	}
+
+	// two images of made-up scanlines, with runs for the deflater and noise against it
+	private static void bands(Path dir) throws IOException {
+		int width = 37, height = 100;
+		byte[] palette = new byte[256 * 3];
+		for (int i = 0; i < palette.length; i++) palette[i] = (byte) (i * 7);
+		PngBandWriter.Scanlines source = (imageRow, pixels, offset) -> {
+			for (int x = 0; x < width; x++) {
+				pixels[0][offset + x] = (byte) (imageRow / 3 + x / 5);
+				pixels[1][offset + x] = (byte) ((imageRow * 31 + x * 17) ^ (x * imageRow));
+			}
+		};
+		byte[][] raw = new byte[2][height * (width + 1)];
+		for (int row = 0; row < height; row++) source.fill(row, raw, row * (width + 1) + 1);
+		List<Chunk> expected0 = chunks(sequentialPng(width, height, palette, raw[0]), "sequential encoder");
+		List<Chunk> expected1 = chunks(sequentialPng(width, height, palette, raw[1]), "sequential encoder");
+
+		for (int bandRows : BAND_ROWS) {
+			byte[][] first = null;
+			for (String spec : new String[] {"sequential", "forkjoin:4", "threads:3"}) {
+				String[] files = {dir.resolve("a.png").toString(), dir.resolve("b.png").toString()};
+				try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+					new PngBandWriter(width, height, palette, bandRows, 2 * backend.parallelism()).write(files, source, backend.executor());
+				}
+				byte[][] bytes = {Files.readAllBytes(Path.of(files[0])), Files.readAllBytes(Path.of(files[1]))};
+				String what = bandRows + " rows a band on " + spec;
+				compare(expected0, raw[0], bytes[0], "image 0 of " + what);
+				compare(expected1, raw[1], bytes[1], "image 1 of " + what);
+				if (first == null) {
+					first = bytes;
+				} else {
+					Check.that(Arrays.equals(first[0], bytes[0]) && Arrays.equals(first[1], bytes[1]),
+							"the bytes of " + what + " differ from those on the sequential backend");
+				}
+			}
+		}
+	}
+
+	// the chunks of png next to those of the sequential encoder, and its scanlines
+	private static void compare(List<Chunk> expected, byte[] raw, byte[] png, String what) {
+		List<Chunk> chunks = chunks(png, what);
+		Check.equal(names(expected).replaceAll("(IDAT )+", "IDAT* "), names(chunks).replaceAll("(IDAT )+", "IDAT* "),
+				"chunks of " + what);
+		for (int i = 0; i < chunks.size(); i++) {
+			Chunk chunk = chunks.get(i);
+			if (chunk.name.equals("IDAT")) continue;
+			Chunk same = expected.get(chunk.name.equals("IEND") ? expected.size() - 1 : i);
+			Check.that(Arrays.equals(same.data, chunk.data), chunk.name + " of " + what + " differs from the sequential encoder");
+		}
+		Check.that(Arrays.equals(raw, inflate(chunks, what)), "scanlines of " + what);
+	}
+
+	// a PNG as the textbook writes it: one zlib stream over all scanlines, in one IDAT chunk
+	private static byte[] sequentialPng(int width, int height, byte[] palette, byte[] raw) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[] {(byte) 137, 80, 78, 71, 13, 10, 26, 10});
+		ByteBuffer header = ByteBuffer.allocate(13).putInt(width).putInt(height).put((byte) 8).put((byte) 3);
+		chunk(out, "IHDR", header.array());
+		chunk(out, "PLTE", palette);
+		Deflater deflater = new Deflater();
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		while (!deflater.finished()) data.write(buffer, 0, deflater.deflate(buffer));
+		deflater.end();
+		chunk(out, "IDAT", data.toByteArray());
+		chunk(out, "IEND", new byte[0]);
+		return bytes.toByteArray();
+	}
+
+	private static void chunk(DataOutputStream out, String name, byte[] data) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(name.getBytes(StandardCharsets.US_ASCII));
+		crc.update(data);
+		out.writeInt(data.length);
+		out.writeBytes(name);
+		out.write(data);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private static final class Chunk {
+		final String name;
+		final byte[] data;
+
+		Chunk(String name, byte[] data) {
+			this.name = name;
+			this.data = data;
+		}
+	}
+
+	// the chunks of a PNG file, each with its CRC checked
+	private static List<Chunk> chunks(byte[] png, String what) {
+		ByteBuffer in = ByteBuffer.wrap(png);
+		byte[] signature = new byte[8];
+		in.get(signature);
+		Check.that(Arrays.equals(signature, new byte[] {(byte) 137, 80, 78, 71, 13, 10, 26, 10}), "signature of " + what);
+		List<Chunk> chunks = new ArrayList<>();
+		while (in.hasRemaining()) {
+			byte[] data = new byte[in.getInt()];
+			byte[] name = new byte[4];
+			in.get(name);
+			in.get(data);
+			CRC32 crc = new CRC32();
+			crc.update(name);
+			crc.update(data);
+			Chunk chunk = new Chunk(new String(name, StandardCharsets.US_ASCII), data);
+			Check.equal((int) crc.getValue(), in.getInt(), "CRC of " + chunk.name + " chunk " + chunks.size() + " of " + what);
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	private static String names(List<Chunk> chunks) {
+		StringBuilder names = new StringBuilder();
+		for (Chunk chunk : chunks) names.append(chunk.name).append(' ');
+		return names.toString();
+	}
+
+	// the IDAT chunks inflated as one zlib stream; the inflater checks the Adler-32 trailer, and so does this
+	private static byte[] inflate(List<Chunk> chunks, String what) {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		for (Chunk chunk : chunks) {
+			if (chunk.name.equals("IDAT")) stream.writeBytes(chunk.data);
+		}
+		byte[] zlib = stream.toByteArray();
+		Inflater inflater = new Inflater();
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		try {
+			inflater.setInput(zlib);
+			byte[] buffer = new byte[4096];
+			while (!inflater.finished()) {
+				int length = inflater.inflate(buffer);
+				Check.that(length > 0 || !inflater.needsInput(), "zlib stream of " + what + " ends early");
+				raw.write(buffer, 0, length);
+			}
+			Check.equal(0, inflater.getRemaining(), "bytes after the zlib stream of " + what);
+		} catch (DataFormatException e) {
+			throw new AssertionError("zlib stream of " + what + ": " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+		Adler32 adler = new Adler32();
+		adler.update(raw.toByteArray());
+		Check.equal((int) adler.getValue(), ByteBuffer.wrap(zlib, zlib.length - 4, 4).getInt(), "Adler-32 trailer of " + what);
+		return raw.toByteArray();
+	}
+
+	// the images of a hunt against the colours of the original visualisePowerMap
+	private static void powerMaps(Path dir) throws IOException {
+		int gate = 20, seed = 42;
+		int searches = OriginalDungeon.searches(gate, 0.2);
+		OriginalDungeon original = new OriginalDungeon(gate, seed);
+		original.hunt(OriginalDungeon.randomStarts(seed, searches, original.rows, original.columns));
+		for (int bandRows : BAND_ROWS) {
+			byte[][] first = null;
+			for (String spec : new String[] {"sequential", "forkjoin:4"}) {
+				String[] files = {dir.resolve("search.png").toString(), dir.resolve("path.png").toString()};
+				try (ExecutionBackend backend = ExecutionBackend.parse(spec)) {
+					DungeonMapParallel dungeon = new DungeonMapParallel(-gate, gate, -gate, gate, seed, backend);
+					DungeonHunterParallel.runHunt(HuntLaunch.random(new Random(seed), searches, dungeon), "adaptive", 4, null, backend);
+					dungeon.encodePowerMaps(files, new boolean[] {false, true}, backend, bandRows);
+				}
+				byte[][] bytes = {Files.readAllBytes(Path.of(files[0])), Files.readAllBytes(Path.of(files[1]))};
+				String what = "power map, " + bandRows + " rows a band on " + spec;
+				colours(original, false, ImageIO.read(new File(files[0])), what);
+				colours(original, true, ImageIO.read(new File(files[1])), "path " + what);
+				if (first == null) {
+					first = bytes;
+				} else {
+					Check.that(Arrays.equals(first[0], bytes[0]) && Arrays.equals(first[1], bytes[1]),
+							"the bytes of the " + what + " differ from those on the sequential backend");
+				}
+			}
+		}
+	}
+
+	private static void colours(OriginalDungeon original, boolean path, BufferedImage image, String what) {
+		Check.equal(original.rows + "x" + original.columns, image.getWidth() + "x" + image.getHeight(), "size of " + what);
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		for (int[] row : original.manaMap) {
+			for (int value : row) {
+				if (value == Integer.MIN_VALUE) continue;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+		}
+		double range = (max > min) ? (max - min) : 1.0;
+		for (int x = 0; x < original.rows; x++) {
+			for (int y = 0; y < original.columns; y++) {
+				int expected;
+				if ((path && !original.visited(x, y)) || original.manaMap[x][y] == Integer.MIN_VALUE) {
+					expected = 0;
+				} else {
+					expected = mapHeightToColor((original.manaMap[x][y] - min) / range);
+				}
+				int actual = image.getRGB(x, image.getHeight() - 1 - y) & 0xffffff;
+				for (int shift = 0; shift <= 16; shift += 8) {
+					Check.that(Math.abs((expected >> shift & 0xff) - (actual >> shift & 0xff)) <= 2,
+							String.format("colour of (%d, %d) in the %s: expected %06x but got %06x", x, y, what, expected, actual));
+				}
+			}
+		}
+	}
+
+	// the gradient of the original visualisePowerMap, as 0xRRGGBB
+	private static int mapHeightToColor(double normalized) {
+	    normalized = Math.max(0, Math.min(1, normalized)); // clamp to [0,1]
+
+	    int r, g, b;
+
+	    if (normalized < 0.33) {
+	        // Black -> Purple
+	        double t = normalized / 0.33;
+	        r = (int) (128 * t); // purple has some red
+	        g = 0;
+	        b = (int) (128 + 127 * t); // increasing blue
+	    }
+	    else if (normalized < 0.66) {
+	        // Purple -> Red
+	        double t = (normalized - 0.33) / 0.33;
+	        r = (int) (128 + 127 * t); // red dominates
+	        g = 0;
+	        b = (int) (255 - 255 * t); // fade out blue
+	    }
+	    else {
+	        // Red -> White
+	        double t = (normalized - 0.66) / 0.34;
+	        r = 255;
+	        g = (int) (255 * t);
+	        b = (int) (255 * t);
+	    }
+
+	    return r << 16 | g << 8 | b;
+	}
+}
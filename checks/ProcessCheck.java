@@ -0,0 +1,63 @@
+/**
+ * ProcessCheck.java
+ * @version Parallel solution
+ *
+ * The hunt on several worker JVMs (--processes) against the original sequential hunt: the
+ * program runs with 1 to 3 processes and must report the mana, the location of the Dungeon
+ * Master and the number of grid points evaluated of the original hunt on the same seed.
+ * The workers are started from the class path of the check.
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ProcessCheck {
+
+	private static final Pattern EVALUATED = Pattern.compile("grid points evaluated: (\\d+)");
+	private static final Pattern MASTER = Pattern.compile("Dungeon Master \\(mana (-?\\d+)\\) found at:\\s+(x=\\S+ y=\\S+)");
+
+	static void run() {
+		for (Object[] run : HuntCheck.RUNS) {
+			int gate = (Integer) run[0], seed = (Integer) run[2];
+			double multiplier = (Double) run[1];
+			OriginalDungeon original = new OriginalDungeon(gate, seed);
+			OriginalDungeon.Result expected = original.hunt(OriginalDungeon.randomStarts(seed,
+					OriginalDungeon.searches(gate, multiplier), original.rows, original.columns));
+			String location = String.format("x=%.1f y=%.1f",   // in the default locale, as the program prints it
+					original.xmin + ((original.xmax - original.xmin) / original.rows) * expected.row,
+					original.ymin + ((original.ymax - original.ymin) / original.columns) * expected.column);
+			for (int processes = 1; processes <= 3; processes++) {
+				String what = processes + " processes, gate " + gate + ", seed " + seed;
+				String output = output(gate + "", multiplier + "", seed + "", "--processes=" + processes, "--backend=forkjoin:2");
+				Matcher evaluated = EVALUATED.matcher(output);
+				Matcher master = MASTER.matcher(output);
+				Check.that(evaluated.find() && master.find(), "no result from " + what + ":\n" + output);
+				Check.equal(original.evaluated, Long.parseLong(evaluated.group(1)), "grid points evaluated of " + what);
+				Check.equal(expected.max, Integer.parseInt(master.group(1)), "mana of " + what);
+				Check.equal(location, master.group(2), "location of the Dungeon Master of " + what);
+			}
+		}
+	}
+
+	// what DungeonHunterParallel prints for args; fails if it does not exit with 0
+	private static String output(String... args) {
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int status;
+		try (PrintStream captured = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+			System.setOut(captured);
+			status = DungeonHunterParallel.run(args);
+		} finally {
+			System.setOut(out);
+		}
+		String output = bytes.toString(StandardCharsets.UTF_8);
+		Check.equal(0, status, "exit status of " + String.join(" ", args) + ":\n" + output);
+		return output;
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * RunChecks.java
+ * @version Parallel solution
+ *
+ * The regression checks of make check: each compares a part of the program with the
+ * original sequential code it replaced, or with a plain implementation of the same thing.
+ * Exits with 1 if any check fails.
+ *
+ * Usage:
+ *   make check
+ *
+ * Tracey Letlape
+ * 2025
+ */
+
+public class RunChecks {
+
+	public static void main(String[] args) {
+		boolean ok = true;
+		ok &= Check.run("mana formula", ManaFormulaCheck::run);
+		ok &= Check.run("hunt against the original", HuntCheck::run);
+		ok &= Check.run("Z-order launch", LaunchCheck::run);
+		ok &= Check.run("banded PNG encoder", PngCheck::run);
+		ok &= Check.run("region mailbox", MailboxCheck::run);
+		ok &= Check.run("hunt on worker processes", ProcessCheck::run);
+		ok &= Check.run("reusable grid", GridCheck::run);
+		if (!ok) System.exit(1);
+	}
+}